@@ -0,0 +1,40 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+public class AttributeDictionary {
+    public static final AttributeDictionary MAKES = new AttributeDictionary(10_000);
+    public static final AttributeDictionary MODELS = new AttributeDictionary(50_000);
+    public static final AttributeDictionary RECORD_TYPES = new AttributeDictionary(16);
+
+    private final int maxEntries;
+    private final Map<String, String> encoded = new ConcurrentHashMap<>();
+    private final Map<String, String> values = new ConcurrentHashMap<>();
+
+    public AttributeDictionary(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public String lookup(String raw) {
+        return lookup(raw, Function.identity());
+    }
+
+    public String lookup(String raw, Function<String, String> normalizer) {
+        if (raw == null) return normalizer.apply(null);
+
+        String value = encoded.get(raw);
+        if (value != null) return value;
+
+        value = normalizer.apply(raw);
+        if (value == null || encoded.size() >= maxEntries) return value;
+
+        String existing = values.putIfAbsent(value, value);
+        if (existing != null) value = existing;
+        encoded.putIfAbsent(raw, value);
+        return value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
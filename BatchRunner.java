@@ -0,0 +1,177 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BatchRunner {
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final RentalSystem rentalSystem;
+    private final PrintWriter out;
+    private final List<String> errors = new ArrayList<>();
+    private long commands;
+    private long failures;
+
+    public BatchRunner(RentalSystem rentalSystem, PrintWriter out) {
+        this.rentalSystem = rentalSystem;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        run(RentalSystem.getInstance(), args.length > 0 ? args[0] : null);
+    }
+
+    public static void run(RentalSystem rentalSystem, String commandFile) throws IOException {
+        PrintStream console = rentalSystem.getConsole();
+        PrintStream buffered = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, StandardCharsets.UTF_8);
+        rentalSystem.setConsole(buffered);
+        InputStream input = commandFile == null ? System.in : new FileInputStream(commandFile);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            PrintWriter out = new PrintWriter(buffered);
+            new BatchRunner(rentalSystem, out).execute(in);
+            out.flush();
+        } finally {
+            buffered.flush();
+            rentalSystem.setConsole(console);
+        }
+    }
+
+    public void execute(BufferedReader in) throws IOException {
+        long start = System.nanoTime();
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            String command = line.trim();
+            if (command.isEmpty() || command.startsWith("#")) continue;
+
+            commands++;
+            try {
+                String problem = executeCommand(command);
+                if (problem != null) {
+                    fail(lineNumber, command, problem);
+                }
+            } catch (RuntimeException e) {
+                fail(lineNumber, command, e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage());
+            }
+        }
+        report(System.nanoTime() - start);
+    }
+
+    private String executeCommand(String command) {
+        String[] parts = command.split("\\s+", 2);
+        String[] args = parts.length > 1 ? parts[1].split("\\s+") : new String[0];
+        switch (parts[0].toLowerCase()) {
+            case "add-vehicle": {
+                if (parts.length < 2) return "usage: add-vehicle Type,PLATE,make,model,year,status,extra...";
+                Vehicle vehicle = RentalSystem.parseVehicle(parts[1]);
+                if (vehicle == null) return "unknown vehicle type or missing fields";
+                return rentalSystem.addVehicle(vehicle) ? null : "duplicate license plate";
+            }
+            case "add-customer": {
+                String[] fields = parts.length > 1 ? parts[1].split("\\s+", 2) : new String[0];
+                if (fields.length < 2) return "usage: add-customer <id> <name>";
+                Customer customer = new Customer(Integer.parseInt(fields[0]), fields[1]);
+                return rentalSystem.addCustomer(customer) ? null : "duplicate customer ID";
+            }
+            case "rent": {
+                if (args.length < 3) return "usage: rent <plate> <customerId> <days> [yyyy-mm-dd]";
+                Vehicle vehicle = requireVehicle(args[0]);
+                Customer customer = requireCustomer(args[1]);
+                LocalDate date = args.length > 3 ? LocalDate.parse(args[3]) : LocalDate.now();
+                return rentalSystem.rentVehicleQuoted(vehicle, customer, date, Integer.parseInt(args[2]))
+                        ? null : "vehicle " + vehicle.getLicensePlate() + " is " + vehicle.getStatus();
+            }
+            case "return": {
+                if (args.length < 2) return "usage: return <plate> <customerId> [yyyy-mm-dd]";
+                Vehicle vehicle = requireVehicle(args[0]);
+                Customer customer = requireCustomer(args[1]);
+                LocalDate date = args.length > 2 ? LocalDate.parse(args[2]) : LocalDate.now();
+                return rentalSystem.returnVehicleQuoted(vehicle, customer, date)
+                        ? null : "vehicle " + vehicle.getLicensePlate() + " is " + vehicle.getStatus();
+            }
+            case "vehicle": {
+                if (args.length < 1) return "usage: vehicle <plate>";
+                Vehicle vehicle = requireVehicle(args[0]);
+                out.println(vehicle.getInfo());
+                return null;
+            }
+            case "customer": {
+                if (args.length < 1) return "usage: customer <id>";
+                out.println(requireCustomer(args[0]));
+                return null;
+            }
+            case "history": {
+                if (args.length < 1) return "usage: history <plate>";
+                for (RentalRecord record : rentalSystem.getRentalHistory().getRentalRecordsByVehicle(args[0])) {
+                    out.println(record);
+                }
+                return null;
+            }
+            case "available":
+                out.println("Available vehicles: " + rentalSystem.getAvailableVehicles().size());
+                return null;
+            case "revenue": {
+                LocalDate date = args.length > 0 ? LocalDate.parse(args[0]) : LocalDate.now();
+                out.printf("Revenue on %s: $%.2f%n", date, rentalSystem.getAggregates().getRevenueOn(date));
+                return null;
+            }
+            case "overdue":
+                for (RentalRecord record : rentalSystem.getOverdueRentals()) {
+                    out.println("Overdue: " + record);
+                }
+                return null;
+            case "due-service":
+                for (Vehicle vehicle : rentalSystem.getVehiclesDueForService(LocalDate.now())) {
+                    out.println("Service due: " + vehicle.getLicensePlate() + " on " +
+                            rentalSystem.getMaintenancePlanner().getServiceDate(vehicle));
+                }
+                return null;
+            default:
+                return "unknown command '" + parts[0] + "'";
+        }
+    }
+
+    private Vehicle requireVehicle(String plate) {
+        Vehicle vehicle = rentalSystem.findVehicleByPlate(plate);
+        if (vehicle == null) throw new IllegalArgumentException("no vehicle with plate " + plate);
+        return vehicle;
+    }
+
+    private Customer requireCustomer(String id) {
+        Customer customer = rentalSystem.findCustomerById(id);
+        if (customer == null) throw new IllegalArgumentException("no customer with ID " + id);
+        return customer;
+    }
+
+    private void fail(int lineNumber, String command, String problem) {
+        failures++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add("  line " + lineNumber + ": " + command + " -> " + problem);
+        }
+    }
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%nBatch complete: %d commands, %d succeeded, %d failed in %.3fs (%.0f commands/s)%n",
+                commands, commands - failures, failures, seconds, seconds > 0 ? commands / seconds : 0.0);
+        if (!errors.isEmpty()) {
+            out.println("Errors:");
+            for (String error : errors) {
+                out.println(error);
+            }
+            if (failures > errors.size()) {
+                out.println("  ... and " + (failures - errors.size()) + " more");
+            }
+        }
+    }
+
+    public long getCommandCount() {
+        return commands;
+    }
+
+    public long getFailureCount() {
+        return failures;
+    }
+}
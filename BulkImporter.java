@@ -0,0 +1,192 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+public class BulkImporter {
+    private static final int BATCH_SIZE = 8192;
+
+    private final RentalSystem rentalSystem;
+
+    public BulkImporter(RentalSystem rentalSystem) {
+        this.rentalSystem = rentalSystem;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java BulkImporter <csvFile> [dataDir] [rejectReport]");
+            return;
+        }
+        File input = new File(args[0]);
+        RentalSystem rentalSystem = args.length > 1 ? RentalSystem.forDirectory(new File(args[1])) : RentalSystem.getInstance();
+        File rejects = new File(args.length > 2 ? args[2] : args[0] + ".rejects");
+
+        long start = System.nanoTime();
+        Result result = new BulkImporter(rentalSystem).importFile(input, rejects);
+        System.out.printf("%s in %d ms%n", result, (System.nanoTime() - start) / 1_000_000);
+        if (result.getRejected() > 0) {
+            System.out.println("Reject report: " + rejects.getPath());
+        }
+    }
+
+    public Result importFile(File input, File rejectReport) throws IOException {
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8));
+             PrintWriter rejects = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                     new FileOutputStream(rejectReport), StandardCharsets.UTF_8)))) {
+            return importLines(in, rejects);
+        }
+    }
+
+    public Result importLines(BufferedReader in, PrintWriter rejects) throws IOException {
+        Result result = new Result();
+        Map<String, Row> pendingVehicles = new LinkedHashMap<>();
+        Map<Integer, Row> pendingCustomers = new LinkedHashMap<>();
+
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        int firstLine = 1;
+        String line;
+        while ((line = in.readLine()) != null) {
+            batch.add(line);
+            if (batch.size() == BATCH_SIZE) {
+                dedupe(validate(batch, firstLine), pendingVehicles, pendingCustomers, rejects, result);
+                firstLine += batch.size();
+                batch.clear();
+            }
+        }
+        dedupe(validate(batch, firstLine), pendingVehicles, pendingCustomers, rejects, result);
+
+        List<Vehicle> vehicles = new ArrayList<>(pendingVehicles.size());
+        for (Row row : pendingVehicles.values()) {
+            vehicles.add(row.vehicle);
+        }
+        List<Vehicle> duplicateVehicles = rentalSystem.addVehicles(vehicles);
+        for (Vehicle vehicle : duplicateVehicles) {
+            reject(rejects, pendingVehicles.get(vehicle.getLicensePlate()), "duplicate license plate", result);
+        }
+        result.vehicles = vehicles.size() - duplicateVehicles.size();
+
+        List<Customer> customers = new ArrayList<>(pendingCustomers.size());
+        for (Row row : pendingCustomers.values()) {
+            customers.add(row.customer);
+        }
+        List<Customer> duplicateCustomers = rentalSystem.addCustomers(customers);
+        for (Customer customer : duplicateCustomers) {
+            reject(rejects, pendingCustomers.get(customer.getCustomerId()), "duplicate customer ID", result);
+        }
+        result.customers = customers.size() - duplicateCustomers.size();
+        return result;
+    }
+
+    private Row[] validate(List<String> lines, int firstLine) {
+        Row[] rows = new Row[lines.size()];
+        IntStream.range(0, rows.length).parallel()
+                .forEach(i -> rows[i] = parseRow(firstLine + i, lines.get(i)));
+        return rows;
+    }
+
+    private void dedupe(Row[] rows, Map<String, Row> pendingVehicles, Map<Integer, Row> pendingCustomers,
+                        PrintWriter rejects, Result result) {
+        for (Row row : rows) {
+            if (row == null) continue;
+            if (row.error != null) {
+                reject(rejects, row, row.error, result);
+            } else if (row.vehicle != null) {
+                String plate = row.vehicle.getLicensePlate();
+                if (rentalSystem.findVehicleByPlate(plate) != null || pendingVehicles.putIfAbsent(plate, row) != null) {
+                    reject(rejects, row, "duplicate license plate", result);
+                }
+            } else {
+                int id = row.customer.getCustomerId();
+                if (rentalSystem.findCustomerById(String.valueOf(id)) != null || pendingCustomers.putIfAbsent(id, row) != null) {
+                    reject(rejects, row, "duplicate customer ID", result);
+                }
+            }
+        }
+    }
+
+    private static Row parseRow(int lineNumber, String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#") || trimmed.regionMatches(true, 0, "type,", 0, 5)) {
+            return null;
+        }
+
+        Row row = new Row(lineNumber, line);
+        try {
+            if (trimmed.startsWith("Customer,")) {
+                String[] parts = trimmed.split(",", 3);
+                if (parts.length < 3 || parts[2].trim().isEmpty()) {
+                    row.error = "missing customer name";
+                } else if (parts[2].indexOf(',') >= 0) {
+                    row.error = "customer name contains a comma";
+                } else {
+                    int id = Integer.parseInt(parts[1].trim());
+                    if (id <= 0) {
+                        row.error = "customer ID must be positive";
+                    } else {
+                        row.customer = new Customer(id, parts[2].trim());
+                    }
+                }
+            } else {
+                Vehicle vehicle = RentalSystem.parseVehicle(trimmed);
+                if (vehicle == null) {
+                    row.error = "unknown vehicle type or missing fields";
+                } else if (vehicle.getLicensePlate() == null) {
+                    row.error = "missing license plate";
+                } else {
+                    row.vehicle = vehicle;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            row.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+        }
+        return row;
+    }
+
+    private static void reject(PrintWriter rejects, Row row, String reason, Result result) {
+        rejects.print(row.lineNumber);
+        rejects.print(',');
+        rejects.print(reason.replace(',', ';'));
+        rejects.print(',');
+        rejects.println(row.line);
+        result.rejected++;
+    }
+
+    private static class Row {
+        final int lineNumber;
+        final String line;
+        Vehicle vehicle;
+        Customer customer;
+        String error;
+
+        Row(int lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+    }
+
+    public static class Result {
+        private int vehicles;
+        private int customers;
+        private int rejected;
+
+        public int getVehicles() {
+            return vehicles;
+        }
+
+        public int getCustomers() {
+            return customers;
+        }
+
+        public int getRejected() {
+            return rejected;
+        }
+
+        @Override
+        public String toString() {
+            return "Imported " + vehicles + " vehicles and " + customers + " customers, rejected " + rejected + " rows";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+import java.util.Collections;
+import java.util.List;
+
+public class HistoryPage {
+    private final List<RentalRecord> records;
+    private final long nextCursor;
+    private final boolean hasMore;
+    private final int historySize;
+
+    public HistoryPage(List<RentalRecord> records, long nextCursor, boolean hasMore, int historySize) {
+        this.records = Collections.unmodifiableList(records);
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.historySize = historySize;
+    }
+
+    public List<RentalRecord> getRecords() {
+        return records;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public int getHistorySize() {
+        return historySize;
+    }
+}
@@ -0,0 +1,352 @@
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGenerator {
+    private static final String[] CAR_MAKES = { "toyota", "honda", "ford", "chevrolet", "nissan", "hyundai", "kia", "mazda", "volkswagen", "subaru" };
+    private static final String[] CAR_MODELS = { "corolla", "civic", "focus", "malibu", "sentra", "elantra", "forte", "mazda3", "jetta", "impreza" };
+    private static final String[] SPORT_MAKES = { "porsche", "ferrari", "chevrolet", "ford", "nissan", "bmw" };
+    private static final String[] SPORT_MODELS = { "911", "roma", "corvette", "mustang", "gt-r", "m4" };
+    private static final String[] MOTORCYCLE_MAKES = { "honda", "yamaha", "kawasaki", "harley-davidson", "ducati", "suzuki" };
+    private static final String[] MOTORCYCLE_MODELS = { "cbr", "r1", "ninja", "sportster", "monster", "gsx-r" };
+    private static final String[] TRUCK_MAKES = { "ford", "ram", "chevrolet", "gmc", "toyota", "isuzu" };
+    private static final String[] TRUCK_MODELS = { "f150", "1500", "silverado", "sierra", "tundra", "npr" };
+    private static final String[] FIRST_NAMES = { "John", "Mary", "Ahmed", "Li", "Sofia", "Raj", "Emma", "Noah", "Olivia", "Lucas", "Amara", "Kenji" };
+    private static final String[] LAST_NAMES = { "Doe", "Smith", "Khan", "Wang", "Garcia", "Patel", "Brown", "Martin", "Nguyen", "Silva", "Okafor", "Sato" };
+
+    private static final int HISTORY_DAYS = 730;
+
+    private enum Operation { RENT, RETURN, LOOKUP, HISTORY }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 5 && "generate".equals(args[0])) {
+            generate(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        } else if (args.length >= 2 && "startup".equals(args[0])) {
+            measureStartup(new File(args[1]));
+        } else if (args.length >= 6 && "soak".equals(args[0])) {
+            int[] mix = args.length > 6 ? parseMix(args[6]) : new int[] { 20, 20, 50, 10 };
+            soak(new File(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                    Integer.parseInt(args[4]), Integer.parseInt(args[5]), mix);
+        } else {
+            System.out.println("Usage: java LoadGenerator generate <dir> <vehicles> <customers> <records>");
+            System.out.println("       java LoadGenerator startup <dir>");
+            System.out.println("       java LoadGenerator soak <dir> <vehicles> <customers> <threads> <seconds> [rent,return,lookup,history]");
+        }
+    }
+
+    public static String plateFor(int index) {
+        int letters = index / 1000;
+        char a = (char) ('A' + letters / (26 * 26) % 26);
+        char b = (char) ('A' + letters / 26 % 26);
+        char c = (char) ('A' + letters % 26);
+        return "" + a + b + c + String.format("%03d", index % 1000);
+    }
+
+    public static Vehicle createVehicle(int index, Random random) {
+        int kind = random.nextInt(100);
+        int year = 2005 + random.nextInt(20);
+        Vehicle vehicle;
+        if (kind < 50) {
+            int i = random.nextInt(CAR_MAKES.length);
+            vehicle = new Car(CAR_MAKES[i], CAR_MODELS[i], year, 2 + 2 * random.nextInt(3));
+        } else if (kind < 60) {
+            int i = random.nextInt(SPORT_MAKES.length);
+            vehicle = new SportCar(SPORT_MAKES[i], SPORT_MODELS[i], year, 2, 300 + random.nextInt(400), random.nextBoolean());
+        } else if (kind < 75) {
+            int i = random.nextInt(MOTORCYCLE_MAKES.length);
+            vehicle = new Motorcycle(MOTORCYCLE_MAKES[i], MOTORCYCLE_MODELS[i], year, random.nextInt(10) == 0);
+        } else {
+            int i = random.nextInt(TRUCK_MAKES.length);
+            vehicle = new Truck(TRUCK_MAKES[i], TRUCK_MODELS[i], year, 500 + random.nextInt(40) * 100);
+        }
+        vehicle.setLicensePlate(plateFor(index));
+        return vehicle;
+    }
+
+    public static Customer createCustomer(int id, Random random) {
+        return new Customer(id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+    }
+
+    public static void generate(File dir, int vehicleCount, int customerCount, int recordCount) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir.getPath());
+        }
+        long start = System.nanoTime();
+        Random random = new Random(42);
+
+        Vehicle[] fleet = new Vehicle[vehicleCount];
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, "vehicles.txt"))))) {
+            for (int i = 0; i < vehicleCount; i++) {
+                fleet[i] = createVehicle(i, random);
+                out.println(RentalSystem.formatVehicle(fleet[i]));
+            }
+        }
+
+        Customer[] customers = new Customer[customerCount];
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(new File(dir, "customers.txt"))))) {
+            for (int i = 0; i < customerCount; i++) {
+                customers[i] = createCustomer(i + 1, random);
+                out.println(customers[i].getCustomerId() + "," + customers[i].getCustomerName());
+            }
+        }
+
+        RentalRecordStore.checkpointFile(dir).delete();
+        Map<YearMonth, PrintWriter> segments = new HashMap<>();
+        LocalDate first = LocalDate.now().minusDays(HISTORY_DAYS - 1);
+        int rentals = (recordCount + 1) / 2;
+        int written = 0;
+        try {
+            for (int v = 0; v < vehicleCount; v++) {
+                int perVehicle = rentals / vehicleCount + (v < rentals % vehicleCount ? 1 : 0);
+                double slot = (double) HISTORY_DAYS / Math.max(1, perVehicle);
+                for (int j = 0; j < perVehicle; j++) {
+                    long slotStart = (long) (j * slot);
+                    long slotEnd = Math.max(slotStart, (long) ((j + 1) * slot) - 1);
+                    long rentDay = slotStart + random.nextInt((int) (slotEnd - slotStart) / 2 + 1);
+                    long returnDay = Math.min(slotEnd, rentDay + 1 + random.nextInt(14));
+                    Customer customer = customers[random.nextInt(customerCount)];
+
+                    writeRecord(dir, segments, new RentalRecord(fleet[v], customer, first.plusDays(rentDay),
+                            40 + random.nextInt(400), "RENT"));
+                    if (++written < recordCount) {
+                        writeRecord(dir, segments, new RentalRecord(fleet[v], customer, first.plusDays(returnDay),
+                                random.nextInt(50), "RETURN"));
+                        written++;
+                    }
+                }
+            }
+        } finally {
+            for (PrintWriter out : segments.values()) {
+                out.close();
+            }
+        }
+
+        System.out.printf("Generated %d vehicles, %d customers, %d records in %s (%d ms)%n",
+                vehicleCount, customerCount, recordCount, dir.getPath(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void writeRecord(File dir, Map<YearMonth, PrintWriter> segments, RentalRecord record) throws IOException {
+        YearMonth month = YearMonth.from(record.getRecordDate());
+        PrintWriter out = segments.get(month);
+        if (out == null) {
+            out = new PrintWriter(new BufferedWriter(new FileWriter(RentalRecordStore.segmentFile(dir, month))));
+            segments.put(month, out);
+        }
+        out.println(RentalRecordStore.formatRecord(record));
+    }
+
+    public static void measureStartup(File dir) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        RentalSystem rentalSystem = RentalSystem.forDirectory(dir);
+        long elapsed = System.nanoTime() - start;
+        long after = usedHeap();
+
+        System.out.printf("Loaded %d vehicles, %d customers, %d hot records in %d ms, heap +%d MB%n",
+                rentalSystem.getVehicles().size(), rentalSystem.getCustomers().size(),
+                rentalSystem.getRentalHistory().size(),
+                elapsed / 1_000_000, (after - before) / (1024 * 1024));
+    }
+
+    public static void soak(File dir, int vehicleCount, int customerCount, int threads, int seconds, int[] mix)
+            throws IOException, InterruptedException {
+        if (!new File(dir, "vehicles.txt").exists()) {
+            generate(dir, vehicleCount, customerCount, 0);
+        }
+
+        RentalSystem rentalSystem = RentalSystem.forDirectory(dir);
+        List<Vehicle> fleet = new ArrayList<>(rentalSystem.getVehicles());
+        List<Customer> customers = new ArrayList<>(rentalSystem.getCustomers());
+        if (fleet.isEmpty() || customers.isEmpty()) {
+            System.out.println("No vehicles or customers in " + dir.getPath());
+            return;
+        }
+
+        Histogram[] histograms = new Histogram[Operation.values().length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+        LongAdder completed = new LongAdder();
+        LongAdder failures = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(threads);
+
+        rentalSystem.setConsole(new PrintStream(OutputStream.nullOutputStream()));
+        long startGc = gcCount();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                Histogram[] local = new Histogram[histograms.length];
+                for (int i = 0; i < local.length; i++) {
+                    local[i] = new Histogram();
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Operation op = pick(mix, random);
+                    long opStart = System.nanoTime();
+                    try {
+                        execute(op, rentalSystem, fleet, customers, random);
+                    } catch (RuntimeException e) {
+                        failures.increment();
+                    }
+                    local[op.ordinal()].record(System.nanoTime() - opStart);
+                    completed.increment();
+                }
+                synchronized (histograms) {
+                    for (int i = 0; i < local.length; i++) {
+                        histograms[i].merge(local[i]);
+                    }
+                }
+                done.countDown();
+            }, "load-" + t);
+            worker.start();
+        }
+
+        long lastCount = 0;
+        while (!done.await(5, TimeUnit.SECONDS)) {
+            long count = completed.sum();
+            System.out.printf("  %6.0fs  %,10d ops/s  heap %,6d MB%n",
+                    (System.nanoTime() - start) / 1e9, (count - lastCount) / 5, usedHeapNoGc() / (1024 * 1024));
+            lastCount = count;
+        }
+
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nThreads: %d | Duration: %.1fs | Operations: %,d | Throughput: %,.0f ops/s | Errors: %d%n",
+                threads, elapsed, completed.sum(), completed.sum() / elapsed, failures.sum());
+        System.out.printf("Heap used: %,d MB of %,d MB | GC collections: %d%n",
+                usedHeap() / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024), gcCount() - startGc);
+        System.out.println("Operation |      Count |   p50 us |   p90 us |   p99 us | p99.9 us |   max us");
+        for (Operation op : Operation.values()) {
+            Histogram h = histograms[op.ordinal()];
+            System.out.printf("%-9s | %,10d | %8.1f | %8.1f | %8.1f | %8.1f | %8.1f%n", op, h.count(),
+                    h.percentile(50) / 1e3, h.percentile(90) / 1e3, h.percentile(99) / 1e3,
+                    h.percentile(99.9) / 1e3, h.max() / 1e3);
+        }
+    }
+
+    private static void execute(Operation op, RentalSystem rentalSystem, List<Vehicle> fleet, List<Customer> customers,
+                                ThreadLocalRandom random) {
+        Customer customer = customers.get(random.nextInt(customers.size()));
+        switch (op) {
+            case RENT: {
+                List<Vehicle> available = rentalSystem.getAvailableVehicles();
+                if (available.isEmpty()) return;
+                Vehicle vehicle = available.get(random.nextInt(available.size()));
+                rentalSystem.rentVehicle(vehicle, customer, LocalDate.now(), 40 + random.nextInt(400));
+                break;
+            }
+            case RETURN: {
+                List<Vehicle> rented = rentalSystem.getVehiclesByStatus(Vehicle.VehicleStatus.RENTED);
+                if (rented.isEmpty()) return;
+                Vehicle vehicle = rented.get(random.nextInt(rented.size()));
+                rentalSystem.returnVehicle(vehicle, customer, LocalDate.now(), random.nextInt(50));
+                break;
+            }
+            case LOOKUP:
+                rentalSystem.findVehicleByPlate(fleet.get(random.nextInt(fleet.size())).getLicensePlate());
+                rentalSystem.findCustomerById(String.valueOf(customer.getCustomerId()));
+                break;
+            case HISTORY:
+                rentalSystem.getRentalHistory().getRentalRecordsByVehicle(fleet.get(random.nextInt(fleet.size())).getLicensePlate());
+                break;
+        }
+    }
+
+    private static Operation pick(int[] mix, ThreadLocalRandom random) {
+        int total = 0;
+        for (int weight : mix) total += weight;
+        int roll = random.nextInt(total);
+        for (int i = 0; i < mix.length; i++) {
+            roll -= mix[i];
+            if (roll < 0) return Operation.values()[i];
+        }
+        return Operation.LOOKUP;
+    }
+
+    private static int[] parseMix(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length != 4) throw new IllegalArgumentException("Mix must be rent,return,lookup,history");
+        int[] mix = new int[4];
+        for (int i = 0; i < 4; i++) {
+            mix[i] = Integer.parseInt(parts[i].trim());
+        }
+        return mix;
+    }
+
+    private static long usedHeap() {
+        System.gc();
+        return usedHeapNoGc();
+    }
+
+    private static long usedHeapNoGc() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private static class Histogram {
+        private static final int SUB_BUCKETS = 16;
+        private final long[] counts = new long[64 * SUB_BUCKETS];
+        private long total;
+        private long max;
+
+        void record(long nanos) {
+            long value = Math.max(1, nanos);
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = exponent < 4 ? (int) value % SUB_BUCKETS : (int) ((value >>> (exponent - 4)) & (SUB_BUCKETS - 1));
+            counts[exponent * SUB_BUCKETS + sub]++;
+            total++;
+            if (nanos > max) max = nanos;
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            max = Math.max(max, other.max);
+        }
+
+        long count() {
+            return total;
+        }
+
+        long max() {
+            return max;
+        }
+
+        double percentile(double p) {
+            if (total == 0) return 0;
+            long target = (long) Math.ceil(total * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    int exponent = i / SUB_BUCKETS;
+                    int sub = i % SUB_BUCKETS;
+                    if (exponent < 4) return sub;
+                    return (double) ((long) (SUB_BUCKETS + sub) << (exponent - 4));
+                }
+            }
+            return max;
+        }
+    }
+}
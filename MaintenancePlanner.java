@@ -0,0 +1,107 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class MaintenancePlanner {
+    public static final int DEFAULT_RENTALS_PER_SERVICE = 20;
+
+    private final int rentalsPerService;
+    private final Map<Vehicle, Integer> rentalCounts = new IdentityHashMap<>();
+    private final Map<Vehicle, LocalDate> lastServiced = new IdentityHashMap<>();
+    private final Map<Vehicle, LocalDate> serviceDates = new IdentityHashMap<>();
+    private final TreeMap<LocalDate, Set<Vehicle>> serviceIndex = new TreeMap<>();
+
+    public MaintenancePlanner() {
+        this(DEFAULT_RENTALS_PER_SERVICE);
+    }
+
+    public MaintenancePlanner(int rentalsPerService) {
+        if (rentalsPerService < 1) throw new IllegalArgumentException("Rentals per service must be >= 1");
+        this.rentalsPerService = rentalsPerService;
+    }
+
+    public synchronized boolean recordRental(RentalRecord rentRecord, LocalDate expectedReturn) {
+        Vehicle vehicle = rentRecord.getVehicle();
+        int count = rentalCounts.merge(vehicle, 1, Integer::sum);
+        if (count >= rentalsPerService && !serviceDates.containsKey(vehicle)) {
+            schedule(vehicle, expectedReturn != null ? expectedReturn : rentRecord.getRecordDate());
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void restoreRentalCount(Vehicle vehicle, int count, LocalDate serviceDate) {
+        rentalCounts.put(vehicle, count);
+        if (serviceDate != null) {
+            schedule(vehicle, serviceDate);
+        }
+    }
+
+    public synchronized void schedule(Vehicle vehicle, LocalDate date) {
+        unschedule(vehicle);
+        serviceDates.put(vehicle, date);
+        serviceIndex.computeIfAbsent(date, d -> new LinkedHashSet<>()).add(vehicle);
+    }
+
+    public synchronized void serviced(Vehicle vehicle, LocalDate date) {
+        rentalCounts.remove(vehicle);
+        lastServiced.put(vehicle, date);
+        unschedule(vehicle);
+    }
+
+    private void unschedule(Vehicle vehicle) {
+        LocalDate date = serviceDates.remove(vehicle);
+        if (date == null) return;
+        Set<Vehicle> due = serviceIndex.get(date);
+        due.remove(vehicle);
+        if (due.isEmpty()) {
+            serviceIndex.remove(date);
+        }
+    }
+
+    public synchronized boolean isServiceScheduled(Vehicle vehicle) {
+        return serviceDates.containsKey(vehicle);
+    }
+
+    public synchronized LocalDate getServiceDate(Vehicle vehicle) {
+        return serviceDates.get(vehicle);
+    }
+
+    public synchronized LocalDate getLastServiced(Vehicle vehicle) {
+        return lastServiced.get(vehicle);
+    }
+
+    public synchronized int getRentalCount(Vehicle vehicle) {
+        return rentalCounts.getOrDefault(vehicle, 0);
+    }
+
+    public int getRentalsPerService() {
+        return rentalsPerService;
+    }
+
+    public synchronized List<Vehicle> getVehiclesDueBetween(LocalDate from, LocalDate to) {
+        return collect(serviceIndex.subMap(from, true, to, true));
+    }
+
+    public synchronized List<Vehicle> getVehiclesDueBy(LocalDate date) {
+        return collect(serviceIndex.headMap(date, true));
+    }
+
+    public List<Vehicle> getVehiclesDueThisWeek(LocalDate today) {
+        return getVehiclesDueBy(today.plusDays(6));
+    }
+
+    private static List<Vehicle> collect(Map<LocalDate, Set<Vehicle>> range) {
+        List<Vehicle> result = new ArrayList<>();
+        for (Set<Vehicle> due : range.values()) {
+            result.addAll(due);
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,358 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class OffHeapRentalHistory implements AutoCloseable {
+    private static final int SLOT_SIZE = 80;
+    private static final int HEADER_SIZE = 32;
+    private static final int MAGIC = 0x52454332;
+    private static final int DEFAULT_SLOTS_PER_CHUNK = 1 << 20;
+    private static final String LONG_IDS_SUFFIX = ".ids";
+
+    private static final int PLATE_OFFSET = 0;
+    private static final int PLATE_LENGTH = 6;
+    private static final int TYPE_OFFSET = 6;
+    private static final int REQUEST_ID_LENGTH_OFFSET = 7;
+    private static final int CUSTOMER_OFFSET = 8;
+    private static final int DATE_OFFSET = 12;
+    private static final int AMOUNT_OFFSET = 16;
+    private static final int SEQUENCE_OFFSET = 24;
+    private static final int DUE_DATE_OFFSET = 32;
+    private static final int REQUEST_ID_OFFSET = 40;
+    private static final int REQUEST_ID_LENGTH = SLOT_SIZE - REQUEST_ID_OFFSET;
+
+    private static final int NO_DUE_DATE = Integer.MIN_VALUE;
+    private static final byte LONG_REQUEST_ID = -1;
+
+    private static final byte TYPE_RENT = 1;
+    private static final byte TYPE_RETURN = 2;
+
+    private final int slotsPerChunk;
+    private final List<ByteBuffer> chunks = new CopyOnWriteArrayList<>();
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final File longIdsFile;
+    private final Map<Long, String> longRequestIds = new ConcurrentHashMap<>();
+    private final RentalAggregates aggregates = new RentalAggregates();
+    private final Function<String, Vehicle> vehicleLookup;
+    private final Function<Integer, Customer> customerLookup;
+    private volatile long size;
+    private long sourceLength;
+
+    public OffHeapRentalHistory(Function<String, Vehicle> vehicleLookup, Function<Integer, Customer> customerLookup) {
+        this(DEFAULT_SLOTS_PER_CHUNK, vehicleLookup, customerLookup);
+    }
+
+    public OffHeapRentalHistory(int slotsPerChunk, Function<String, Vehicle> vehicleLookup, Function<Integer, Customer> customerLookup) {
+        this.slotsPerChunk = slotsPerChunk;
+        this.vehicleLookup = vehicleLookup;
+        this.customerLookup = customerLookup;
+        this.channel = null;
+        this.header = null;
+        this.longIdsFile = null;
+    }
+
+    private OffHeapRentalHistory(File file, int slotsPerChunk, Function<String, Vehicle> vehicleLookup,
+                                 Function<Integer, Customer> customerLookup) throws IOException {
+        this.slotsPerChunk = slotsPerChunk;
+        this.vehicleLookup = vehicleLookup;
+        this.customerLookup = customerLookup;
+        this.channel = new RandomAccessFile(file, "rw").getChannel();
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        this.longIdsFile = longIdsFile(file);
+
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, SLOT_SIZE);
+            header.putLong(8, 0);
+            header.putLong(16, 0);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != SLOT_SIZE) {
+            channel.close();
+            throw new IOException("Not a rental history file: " + file.getPath());
+        }
+
+        long stored = header.getLong(8);
+        while ((long) chunks.size() * slotsPerChunk < stored) {
+            addChunk();
+        }
+        this.size = stored;
+        this.sourceLength = header.getLong(16);
+        readLongRequestIds();
+
+        forEach(view -> aggregates.recordAdded(view.getRecordDate(), view.getTotalAmount(),
+                view.getRecordType(), view.getCustomerId()));
+    }
+
+    public static OffHeapRentalHistory mapped(File file, Function<String, Vehicle> vehicleLookup,
+                                              Function<Integer, Customer> customerLookup) throws IOException {
+        return mapped(file, DEFAULT_SLOTS_PER_CHUNK, vehicleLookup, customerLookup);
+    }
+
+    public static OffHeapRentalHistory mapped(File file, int slotsPerChunk, Function<String, Vehicle> vehicleLookup,
+                                              Function<Integer, Customer> customerLookup) throws IOException {
+        return new OffHeapRentalHistory(file, slotsPerChunk, vehicleLookup, customerLookup);
+    }
+
+    public static void delete(File file) {
+        file.delete();
+        longIdsFile(file).delete();
+    }
+
+    private static File longIdsFile(File file) {
+        return new File(file.getPath() + LONG_IDS_SUFFIX);
+    }
+
+    private void readLongRequestIds() throws IOException {
+        if (!longIdsFile.exists()) return;
+        try (BufferedReader br = new BufferedReader(new FileReader(longIdsFile, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] parts = line.split(",", 2);
+                if (parts.length < 2) continue;
+                try {
+                    long index = Long.parseLong(parts[0]);
+                    if (index < size) longRequestIds.put(index, parts[1]);
+                } catch (NumberFormatException e) {
+                    // torn write, the slot it belongs to was never committed
+                }
+            }
+        }
+    }
+
+    public synchronized void addRecord(RentalRecord record) {
+        long index = size;
+        int chunk = (int) (index / slotsPerChunk);
+        if (chunk == chunks.size()) {
+            addChunk();
+        }
+
+        ByteBuffer buffer = chunks.get(chunk);
+        int base = (int) (index % slotsPerChunk) * SLOT_SIZE;
+        writePlate(buffer, base, record.getVehicle().getLicensePlate());
+        buffer.put(base + TYPE_OFFSET, encodeType(record.getRecordType()));
+        buffer.putInt(base + CUSTOMER_OFFSET, record.getCustomer().getCustomerId());
+        buffer.putInt(base + DATE_OFFSET, (int) record.getRecordDate().toEpochDay());
+        buffer.putDouble(base + AMOUNT_OFFSET, record.getTotalAmount());
+        buffer.putLong(base + SEQUENCE_OFFSET, record.getSequence());
+        buffer.putInt(base + DUE_DATE_OFFSET, record.getDueDate() == null ? NO_DUE_DATE : (int) record.getDueDate().toEpochDay());
+        writeRequestId(buffer, base, index, record.getRequestId());
+
+        size = index + 1;
+        if (header != null) {
+            header.putLong(8, size);
+        }
+        aggregates.recordAdded(record);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public synchronized long getSourceLength() {
+        return sourceLength;
+    }
+
+    public synchronized void setSourceLength(long sourceLength) {
+        this.sourceLength = sourceLength;
+        if (header != null) {
+            header.putLong(16, sourceLength);
+        }
+    }
+
+    public RentalAggregates getAggregates() {
+        return aggregates;
+    }
+
+    public RecordView view() {
+        return new RecordView();
+    }
+
+    public void forEach(Consumer<RecordView> action) {
+        RecordView view = new RecordView();
+        long count = size;
+        for (long i = 0; i < count; i++) {
+            view.moveTo(i);
+            action.accept(view);
+        }
+    }
+
+    public List<RentalRecord> getRentalRecordsByCustomer(int customerId) {
+        List<RentalRecord> result = new ArrayList<>();
+        forEach(view -> {
+            if (view.getCustomerId() == customerId) {
+                RentalRecord record = view.toRentalRecord();
+                if (record != null) result.add(record);
+            }
+        });
+        return result;
+    }
+
+    public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
+        List<RentalRecord> result = new ArrayList<>();
+        forEach(view -> {
+            if (view.plateEquals(licensePlate)) {
+                RentalRecord record = view.toRentalRecord();
+                if (record != null) result.add(record);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel == null) return;
+        for (ByteBuffer chunk : chunks) {
+            ((MappedByteBuffer) chunk).force();
+        }
+        header.force();
+        channel.close();
+    }
+
+    private void addChunk() {
+        long bytes = (long) slotsPerChunk * SLOT_SIZE;
+        if (channel == null) {
+            chunks.add(ByteBuffer.allocateDirect((int) bytes));
+            return;
+        }
+        try {
+            long offset = HEADER_SIZE + chunks.size() * bytes;
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, offset, bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not map history chunk: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writePlate(ByteBuffer buffer, int base, String plate) {
+        for (int i = 0; i < PLATE_LENGTH; i++) {
+            byte b = plate != null && i < plate.length() ? (byte) plate.charAt(i) : 0;
+            buffer.put(base + PLATE_OFFSET + i, b);
+        }
+    }
+
+    private void writeRequestId(ByteBuffer buffer, int base, long index, String requestId) {
+        byte[] bytes = requestId == null ? new byte[0] : requestId.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= REQUEST_ID_LENGTH) {
+            buffer.put(base + REQUEST_ID_LENGTH_OFFSET, (byte) bytes.length);
+            for (int i = 0; i < bytes.length; i++) {
+                buffer.put(base + REQUEST_ID_OFFSET + i, bytes[i]);
+            }
+            return;
+        }
+        buffer.put(base + REQUEST_ID_LENGTH_OFFSET, LONG_REQUEST_ID);
+        longRequestIds.put(index, requestId);
+        if (longIdsFile != null) {
+            try (PrintWriter out = new PrintWriter(new FileWriter(longIdsFile, StandardCharsets.UTF_8, true))) {
+                out.println(index + "," + requestId);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not store request ID: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    private static byte encodeType(String recordType) {
+        if ("RENT".equals(recordType)) return TYPE_RENT;
+        if ("RETURN".equals(recordType)) return TYPE_RETURN;
+        throw new IllegalArgumentException("Unsupported record type: " + recordType);
+    }
+
+    public class RecordView {
+        private ByteBuffer buffer;
+        private int base;
+        private long index;
+
+        public RecordView moveTo(long index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Record index " + index + " out of range");
+            }
+            this.index = index;
+            buffer = chunks.get((int) (index / slotsPerChunk));
+            base = (int) (index % slotsPerChunk) * SLOT_SIZE;
+            return this;
+        }
+
+        public String getLicensePlate() {
+            if (buffer.get(base + PLATE_OFFSET) == 0) return null;
+            byte[] bytes = new byte[PLATE_LENGTH];
+            for (int i = 0; i < PLATE_LENGTH; i++) {
+                bytes[i] = buffer.get(base + PLATE_OFFSET + i);
+            }
+            return new String(bytes, StandardCharsets.US_ASCII);
+        }
+
+        public boolean plateEquals(String plate) {
+            if (plate == null || plate.length() != PLATE_LENGTH) return false;
+            for (int i = 0; i < PLATE_LENGTH; i++) {
+                if (Character.toUpperCase(plate.charAt(i)) != buffer.get(base + PLATE_OFFSET + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public String getRecordType() {
+            return buffer.get(base + TYPE_OFFSET) == TYPE_RENT ? "RENT" : "RETURN";
+        }
+
+        public int getCustomerId() {
+            return buffer.getInt(base + CUSTOMER_OFFSET);
+        }
+
+        public long getEpochDay() {
+            return buffer.getInt(base + DATE_OFFSET);
+        }
+
+        public LocalDate getRecordDate() {
+            return LocalDate.ofEpochDay(getEpochDay());
+        }
+
+        public double getTotalAmount() {
+            return buffer.getDouble(base + AMOUNT_OFFSET);
+        }
+
+        public long getSequence() {
+            return buffer.getLong(base + SEQUENCE_OFFSET);
+        }
+
+        public LocalDate getDueDate() {
+            int day = buffer.getInt(base + DUE_DATE_OFFSET);
+            return day == NO_DUE_DATE ? null : LocalDate.ofEpochDay(day);
+        }
+
+        public String getRequestId() {
+            byte length = buffer.get(base + REQUEST_ID_LENGTH_OFFSET);
+            if (length == LONG_REQUEST_ID) return longRequestIds.get(index);
+            if (length == 0) return null;
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(base + REQUEST_ID_OFFSET + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public RentalRecord toRentalRecord() {
+            Vehicle vehicle = vehicleLookup.apply(getLicensePlate());
+            Customer customer = customerLookup.apply(getCustomerId());
+            if (vehicle == null || customer == null) return null;
+            RentalRecord record = new RentalRecord(vehicle, customer, getRecordDate(), getTotalAmount(), getRecordType(),
+                    getRequestId(), getDueDate());
+            record.setSequence(getSequence());
+            return record;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class OverdueScheduler {
+    private static final int COMPACT_SLACK = 1024;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(
+            Comparator.comparing((Entry e) -> e.dueDate).thenComparingLong(e -> e.record.getSequence()));
+    private final Map<Vehicle, Entry> active = new IdentityHashMap<>();
+
+    public synchronized void schedule(RentalRecord rentRecord, LocalDate dueDate) {
+        Entry entry = new Entry(rentRecord, dueDate);
+        active.put(rentRecord.getVehicle(), entry);
+        if (dueDate == null) return;
+        queue.add(entry);
+        if (queue.size() > 2 * active.size() + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    public synchronized void cancel(Vehicle vehicle) {
+        active.remove(vehicle);
+    }
+
+    public synchronized List<RentalRecord> pollOverdue(LocalDate today) {
+        List<RentalRecord> overdue = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().dueDate.isBefore(today)) {
+            Entry entry = queue.poll();
+            if (active.get(entry.record.getVehicle()) == entry) {
+                entry.overdue = true;
+                overdue.add(entry.record);
+            }
+        }
+        return overdue;
+    }
+
+    public synchronized List<RentalRecord> getOverdueRentals() {
+        List<RentalRecord> overdue = new ArrayList<>();
+        for (Entry entry : active.values()) {
+            if (entry.overdue) {
+                overdue.add(entry.record);
+            }
+        }
+        return overdue;
+    }
+
+    public synchronized RentalRecord getRental(Vehicle vehicle) {
+        Entry entry = active.get(vehicle);
+        return entry == null ? null : entry.record;
+    }
+
+    public synchronized LocalDate getDueDate(Vehicle vehicle) {
+        Entry entry = active.get(vehicle);
+        return entry == null ? null : entry.dueDate;
+    }
+
+    public synchronized int getActiveCount() {
+        return active.size();
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    private void compact() {
+        queue.clear();
+        for (Entry entry : active.values()) {
+            if (!entry.overdue && entry.dueDate != null) {
+                queue.add(entry);
+            }
+        }
+    }
+
+    private static class Entry {
+        final RentalRecord record;
+        final LocalDate dueDate;
+        boolean overdue;
+
+        Entry(RentalRecord record, LocalDate dueDate) {
+            this.record = record;
+            this.dueDate = dueDate;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+public class PartitionedRentalSystem implements AutoCloseable {
+    private final RentalSystem[] shards;
+    private final ExecutorService fanOutPool;
+
+    private static final String MANIFEST_FILE = "shards.txt";
+
+    public PartitionedRentalSystem(File rootDir, int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("Shard count must be >= 1");
+        checkManifest(rootDir, shardCount);
+        this.shards = new RentalSystem[shardCount];
+        List<Map<Integer, Customer>> homeCustomers = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            Map<Integer, Customer> home = new LinkedHashMap<>();
+            for (Customer customer : RentalSystem.readCustomers(new File(rootDir, "shard-" + i))) {
+                home.put(customer.getCustomerId(), customer);
+            }
+            homeCustomers.add(home);
+        }
+        for (int i = 0; i < shardCount; i++) {
+            // a shard's records resolve customers through their home shard, which may not be open yet;
+            // until it is, its stored customers are the very objects it will be opened with
+            shards[i] = RentalSystem.forShard(new File(rootDir, "shard-" + i), new ArrayList<>(homeCustomers.get(i).values()), id -> {
+                int index = homeIndex(id);
+                RentalSystem home = shards[index];
+                return home != null ? home.findCustomerById(String.valueOf(id)) : homeCustomers.get(index).get(id);
+            });
+        }
+        this.fanOutPool = Executors.newFixedThreadPool(shardCount, r -> {
+            Thread thread = new Thread(r, "rental-shard-query");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void checkManifest(File rootDir, int shardCount) {
+        if (!rootDir.isDirectory() && !rootDir.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create data directory: " + rootDir.getPath());
+        }
+        File manifest = new File(rootDir, MANIFEST_FILE);
+        int stored;
+        if (manifest.exists()) {
+            try {
+                stored = Integer.parseInt(Files.readAllLines(manifest.toPath()).get(0).trim());
+            } catch (IOException | RuntimeException e) {
+                throw new IllegalArgumentException("Unreadable shard manifest: " + manifest.getPath());
+            }
+        } else {
+            File[] existing = rootDir.listFiles(file -> file.isDirectory() && file.getName().startsWith("shard-"));
+            stored = existing == null || existing.length == 0 ? shardCount : existing.length;
+        }
+        if (stored != shardCount) {
+            throw new IllegalArgumentException("Data in " + rootDir.getPath() + " is partitioned into " + stored
+                    + " shards, not " + shardCount);
+        }
+        if (!manifest.exists()) {
+            try {
+                Files.write(manifest.toPath(), List.of(String.valueOf(shardCount)));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot write shard manifest: " + e.getMessage());
+            }
+        }
+    }
+
+    private int homeIndex(int customerId) {
+        return Math.floorMod(Integer.hashCode(customerId), shards.length);
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public RentalSystem getShard(int index) {
+        return shards[index];
+    }
+
+    public RentalSystem shardForPlate(String plate) {
+        if (plate == null) return shards[0];
+        return shards[Math.floorMod(plate.toUpperCase().hashCode(), shards.length)];
+    }
+
+    public RentalSystem shardForCustomer(int customerId) {
+        return shards[homeIndex(customerId)];
+    }
+
+    public boolean addVehicle(Vehicle vehicle) {
+        return shardForPlate(vehicle.getLicensePlate()).addVehicle(vehicle);
+    }
+
+    public boolean addCustomer(Customer customer) {
+        return shardForCustomer(customer.getCustomerId()).addCustomer(customer);
+    }
+
+    public Vehicle findVehicleByPlate(String plate) {
+        return shardForPlate(plate).findVehicleByPlate(plate);
+    }
+
+    public Customer findCustomerById(String id) {
+        return shardForCustomer(Integer.parseInt(id)).findCustomerById(id);
+    }
+
+    public boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
+        return rentVehicle(vehicle, customer, date, amount, null);
+    }
+
+    public boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount, String requestId) {
+        Customer registered = registeredCustomer(customer);
+        if (registered == null) return false;
+        return shardForPlate(vehicle.getLicensePlate()).rentVehicle(vehicle, registered, date, amount, requestId);
+    }
+
+    public boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+        return returnVehicle(vehicle, customer, date, extraFees, null);
+    }
+
+    public boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees, String requestId) {
+        Customer registered = registeredCustomer(customer);
+        if (registered == null) return false;
+        return shardForPlate(vehicle.getLicensePlate()).returnVehicle(vehicle, registered, date, extraFees, requestId);
+    }
+
+    private Customer registeredCustomer(Customer customer) {
+        Customer registered = shardForCustomer(customer.getCustomerId()).findCustomerById(String.valueOf(customer.getCustomerId()));
+        if (registered == null) {
+            System.out.println("Error: Customer ID " + customer.getCustomerId() + " is not registered.");
+        }
+        return registered;
+    }
+
+    public List<Vehicle> getVehicles() {
+        return fanOut(RentalSystem::getVehicles);
+    }
+
+    public List<Vehicle> getAvailableVehicles() {
+        return fanOut(RentalSystem::getAvailableVehicles);
+    }
+
+    public List<Customer> getCustomers() {
+        return fanOut(RentalSystem::getCustomers);
+    }
+
+    public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
+        return shardForPlate(licensePlate).getRentalHistory().getRentalRecordsByVehicle(licensePlate);
+    }
+
+    public List<RentalRecord> getRentalRecordsByCustomer(String customerName) {
+        return fanOut(shard -> shard.getRentalHistory().getRentalRecordsByCustomer(customerName));
+    }
+
+    public List<RentalRecord> getRentalRecordsBetween(LocalDate from, LocalDate to) {
+        return fanOut(shard -> shard.getRentalHistory().getRentalRecordsBetween(from, to));
+    }
+
+    public double getRevenueOn(LocalDate date) {
+        double total = 0.0;
+        for (RentalSystem shard : shards) {
+            total += shard.getAggregates().getRevenueOn(date);
+        }
+        return total;
+    }
+
+    public long getVehicleCount(Vehicle.VehicleStatus status) {
+        long total = 0;
+        for (RentalSystem shard : shards) {
+            total += shard.getAggregates().getVehicleCount(status);
+        }
+        return total;
+    }
+
+    private <T> List<T> fanOut(Function<RentalSystem, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        for (RentalSystem shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), fanOutPool));
+        }
+
+        List<T> result = new ArrayList<>();
+        for (CompletableFuture<List<T>> future : futures) {
+            result.addAll(future.join());
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        fanOutPool.shutdown();
+    }
+}
@@ -0,0 +1,98 @@
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class PricingEngine {
+    public static final int MAX_RENTAL_DAYS = 365;
+
+    private static final double CAR_DAILY_RATE = 45.0;
+    private static final double CAR_RATE_PER_EXTRA_SEAT = 4.0;
+    private static final int CAR_INCLUDED_SEATS = 4;
+    private static final double SPORT_CAR_DAILY_RATE = 120.0;
+    private static final double SPORT_CAR_RATE_PER_100_HP = 15.0;
+    private static final double SPORT_CAR_TURBO_SURCHARGE = 25.0;
+    private static final double MOTORCYCLE_DAILY_RATE = 30.0;
+    private static final double MOTORCYCLE_SIDECAR_SURCHARGE = 10.0;
+    private static final double TRUCK_DAILY_RATE = 70.0;
+    private static final double TRUCK_RATE_PER_1000_CAPACITY = 12.0;
+    private static final double LATE_FEE_MULTIPLIER = 1.5;
+
+    private static final double[] DEFAULT_SEASONAL_MULTIPLIERS = {
+            0.85, 0.85, 0.95, 1.0, 1.05, 1.2, 1.3, 1.3, 1.05, 1.0, 0.9, 1.15
+    };
+
+    private final double[] seasonalMultipliers;
+    private final Map<Vehicle, Double> dailyRates = new ConcurrentHashMap<>();
+
+    public PricingEngine() {
+        this(DEFAULT_SEASONAL_MULTIPLIERS);
+    }
+
+    public PricingEngine(double[] monthlyMultipliers) {
+        if (monthlyMultipliers.length != 12) {
+            throw new IllegalArgumentException("Seasonal table needs one multiplier per month");
+        }
+        this.seasonalMultipliers = monthlyMultipliers.clone();
+    }
+
+    public double getDailyRate(Vehicle vehicle) {
+        return dailyRates.computeIfAbsent(vehicle, PricingEngine::baseRate);
+    }
+
+    public double getDailyRate(Vehicle vehicle, LocalDate date) {
+        return getDailyRate(vehicle) * seasonalMultipliers[date.getMonthValue() - 1];
+    }
+
+    private static double baseRate(Vehicle vehicle) {
+        if (vehicle instanceof SportCar) {
+            SportCar sportCar = (SportCar) vehicle;
+            return SPORT_CAR_DAILY_RATE + sportCar.getHorsepower() / 100.0 * SPORT_CAR_RATE_PER_100_HP
+                    + (sportCar.hasTurbo() ? SPORT_CAR_TURBO_SURCHARGE : 0.0);
+        } else if (vehicle instanceof Car) {
+            int extraSeats = Math.max(0, ((Car) vehicle).getNumSeats() - CAR_INCLUDED_SEATS);
+            return CAR_DAILY_RATE + extraSeats * CAR_RATE_PER_EXTRA_SEAT;
+        } else if (vehicle instanceof Motorcycle) {
+            return MOTORCYCLE_DAILY_RATE + (((Motorcycle) vehicle).hasSidecar() ? MOTORCYCLE_SIDECAR_SURCHARGE : 0.0);
+        } else if (vehicle instanceof Truck) {
+            return TRUCK_DAILY_RATE + ((Truck) vehicle).getCargoCapacity() / 1000.0 * TRUCK_RATE_PER_1000_CAPACITY;
+        }
+        return CAR_DAILY_RATE;
+    }
+
+    public double quoteRental(Vehicle vehicle, LocalDate start, int days) {
+        if (days < 1 || days > MAX_RENTAL_DAYS) {
+            throw new IllegalArgumentException("Rental days must be between 1 and " + MAX_RENTAL_DAYS);
+        }
+        return round(getDailyRate(vehicle) * seasonalDays(start, days));
+    }
+
+    public double lateFee(RentalRecord rentRecord, LocalDate returnDate) {
+        // rentals booked without a term have no due date and are never late
+        if (rentRecord == null || rentRecord.getDueDate() == null) return 0.0;
+        return lateFee(rentRecord.getVehicle(), rentRecord.getDueDate(), returnDate);
+    }
+
+    public double lateFee(Vehicle vehicle, LocalDate dueDate, LocalDate returnDate) {
+        long lateDays = ChronoUnit.DAYS.between(dueDate, returnDate);
+        if (lateDays <= 0) return 0.0;
+        return round(getDailyRate(vehicle) * seasonalDays(dueDate, lateDays) * LATE_FEE_MULTIPLIER);
+    }
+
+    private double seasonalDays(LocalDate start, long days) {
+        double total = 0.0;
+        LocalDate day = start;
+        long remaining = days;
+        while (remaining > 0) {
+            long inMonth = Math.min(remaining, day.lengthOfMonth() - day.getDayOfMonth() + 1);
+            total += inMonth * seasonalMultipliers[day.getMonthValue() - 1];
+            remaining -= inMonth;
+            day = day.plusDays(inMonth);
+        }
+        return total;
+    }
+
+    private static double round(double amount) {
+        return Math.round(amount * 100) / 100.0;
+    }
+}
@@ -0,0 +1,100 @@
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+public class RentalAggregates {
+    private final Map<LocalDate, DoubleAdder> revenueByDate = new ConcurrentHashMap<>();
+    private final Map<Integer, LongAdder> rentalsByCustomer = new ConcurrentHashMap<>();
+    private final EnumMap<Vehicle.VehicleStatus, LongAdder> vehiclesByStatus = new EnumMap<>(Vehicle.VehicleStatus.class);
+    private final DoubleAdder totalRevenue = new DoubleAdder();
+    private final LongAdder totalRecords = new LongAdder();
+
+    public RentalAggregates() {
+        for (Vehicle.VehicleStatus status : Vehicle.VehicleStatus.values()) {
+            vehiclesByStatus.put(status, new LongAdder());
+        }
+    }
+
+    public void recordAdded(RentalRecord record) {
+        recordAdded(record.getRecordDate(), record.getTotalAmount(), record.getRecordType(), record.getCustomer().getCustomerId());
+    }
+
+    public void recordAdded(LocalDate date, double amount, String recordType, int customerId) {
+        revenueByDate.computeIfAbsent(date, d -> new DoubleAdder()).add(amount);
+        totalRevenue.add(amount);
+        totalRecords.increment();
+
+        if ("RENT".equals(recordType)) {
+            rentalsByCustomer.computeIfAbsent(customerId, id -> new LongAdder()).increment();
+        }
+    }
+
+    public void addRevenue(LocalDate date, double revenue) {
+        revenueByDate.computeIfAbsent(date, d -> new DoubleAdder()).add(revenue);
+        totalRevenue.add(revenue);
+    }
+
+    public void addRentals(int customerId, long rentals) {
+        rentalsByCustomer.computeIfAbsent(customerId, id -> new LongAdder()).add(rentals);
+    }
+
+    public void addRecords(long records) {
+        totalRecords.add(records);
+    }
+
+    public void merge(RentalAggregates other) {
+        other.forEachRevenueDay(this::addRevenue);
+        other.forEachCustomerRentals(this::addRentals);
+        addRecords(other.getRecordCount());
+    }
+
+    public void forEachRevenueDay(BiConsumer<LocalDate, Double> action) {
+        revenueByDate.forEach((date, revenue) -> action.accept(date, revenue.sum()));
+    }
+
+    public void forEachCustomerRentals(BiConsumer<Integer, Long> action) {
+        rentalsByCustomer.forEach((customerId, rentals) -> action.accept(customerId, rentals.sum()));
+    }
+
+    public void vehicleAdded(Vehicle.VehicleStatus status) {
+        if (status != null) {
+            vehiclesByStatus.get(status).increment();
+        }
+    }
+
+    public void statusChanged(Vehicle.VehicleStatus from, Vehicle.VehicleStatus to) {
+        if (from == to) return;
+        if (from != null) vehiclesByStatus.get(from).decrement();
+        if (to != null) vehiclesByStatus.get(to).increment();
+    }
+
+    public double getRevenueOn(LocalDate date) {
+        DoubleAdder revenue = revenueByDate.get(date);
+        return revenue == null ? 0.0 : revenue.sum();
+    }
+
+    public double getRevenueToday() {
+        return getRevenueOn(LocalDate.now());
+    }
+
+    public double getTotalRevenue() {
+        return totalRevenue.sum();
+    }
+
+    public long getRecordCount() {
+        return totalRecords.sum();
+    }
+
+    public long getRentalCount(int customerId) {
+        LongAdder count = rentalsByCustomer.get(customerId);
+        return count == null ? 0 : count.sum();
+    }
+
+    public long getVehicleCount(Vehicle.VehicleStatus status) {
+        return vehiclesByStatus.get(status).sum();
+    }
+}
@@ -0,0 +1,218 @@
+import java.io.*;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.Random;
+
+public class RentalBenchmarks {
+    public static void main(String[] args) throws IOException {
+        String mode = args.length > 0 ? args[0] : "memory";
+        switch (mode) {
+            case "memory":
+                int fleetSize = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+                runMemoryBenchmark(fleetSize);
+                break;
+            case "export":
+                int records = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+                RentalExporter.Format format = args.length > 2 && "json".equalsIgnoreCase(args[2])
+                        ? RentalExporter.Format.JSON : RentalExporter.Format.CSV;
+                runExportBenchmark(records, format);
+                break;
+            case "pricing":
+                int quotes = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+                runPricingBenchmark(quotes);
+                break;
+            case "offheap":
+                int historySize = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+                runOffHeapBenchmark(historySize);
+                break;
+            default:
+                System.out.println("Usage: java RentalBenchmarks [memory [fleetSize] | export [records] [csv|json] | pricing [quotes] | offheap [records]]");
+        }
+    }
+
+    private static void runMemoryBenchmark(int fleetSize) {
+        String[] makes = randomWords(200, 1);
+        String[] models = randomWords(2_000, 2);
+        AttributeDictionary sharedMakes = new AttributeDictionary(10_000);
+        AttributeDictionary sharedModels = new AttributeDictionary(50_000);
+
+        long before = usedHeap();
+        String[][] shared = buildFleetAttributes(fleetSize, makes, models, sharedMakes, sharedModels);
+        long sharedBytes = usedHeap() - before;
+
+        before = usedHeap();
+        String[][] unshared = buildFleetAttributes(fleetSize, makes, models, null, null);
+        long unsharedBytes = usedHeap() - before;
+
+        System.out.println("Fleet size:                    " + fleetSize);
+        System.out.println("Distinct makes / models:       " + sharedMakes.size() + " / " + sharedModels.size());
+        System.out.println("Make/model heap (dictionary):  " + sharedBytes / 1024 + " KB");
+        System.out.println("Make/model heap (per vehicle): " + unsharedBytes / 1024 + " KB");
+        System.out.println("Saved by sharing:              " + (unsharedBytes - sharedBytes) / 1024 + " KB");
+        Reference.reachabilityFence(shared);
+        Reference.reachabilityFence(unshared);
+    }
+
+    // the same seeded sequence of raw names, normalized either through the dictionaries or into a fresh copy per vehicle
+    private static String[][] buildFleetAttributes(int fleetSize, String[] makes, String[] models,
+                                                   AttributeDictionary makeDictionary, AttributeDictionary modelDictionary) {
+        Random random = new Random(3);
+        String[][] fleet = new String[fleetSize][];
+        for (int i = 0; i < fleetSize; i++) {
+            String make = makes[random.nextInt(makes.length)];
+            String model = models[random.nextInt(models.length)];
+            make = random.nextBoolean() ? make.toUpperCase() : new String(make);
+            model = random.nextBoolean() ? model.toUpperCase() : new String(model);
+            fleet[i] = makeDictionary == null
+                    ? new String[] { capitalize(make), capitalize(model) }
+                    : new String[] { makeDictionary.lookup(make, RentalBenchmarks::capitalize),
+                            modelDictionary.lookup(model, RentalBenchmarks::capitalize) };
+        }
+        return fleet;
+    }
+
+    private static String capitalize(String word) {
+        return word.substring(0, 1).toUpperCase() + word.substring(1).toLowerCase();
+    }
+
+    private static void runExportBenchmark(int recordCount, RentalExporter.Format format) throws IOException {
+        Random random = new Random(5);
+        Vehicle[] fleet = new Vehicle[1_000];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = new Car("Toyota", "Corolla", 2020, 4);
+            fleet[i].setLicensePlate(String.format("EXP%03d", i));
+        }
+        Customer[] customers = new Customer[5_000];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = new Customer(i + 1, "Customer " + (i + 1));
+        }
+        RentalHistory history = new RentalHistory();
+        LocalDate start = LocalDate.now().minusYears(2);
+        for (int i = 0; i < recordCount; i++) {
+            history.addRecord(new RentalRecord(fleet[random.nextInt(fleet.length)], customers[random.nextInt(customers.length)],
+                    start.plusDays(random.nextInt(730)), random.nextInt(50_000) / 100.0, i % 2 == 0 ? "RENT" : "RETURN"));
+        }
+
+        File file = File.createTempFile("rental-export", format == RentalExporter.Format.CSV ? ".csv" : ".jsonl");
+        file.deleteOnExit();
+        try {
+            long heapBefore = usedHeap();
+            long begin = System.nanoTime();
+            RentalExporter exporter = new RentalExporter(format);
+            long rows = exporter.export(history, file);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            long heapAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+            System.out.printf("Streaming %s export: %,d rows in %.2fs (%,.0f rows/s, %.1f MB/s, heap delta %d KB)%n",
+                    format, rows, seconds, rows / seconds, exporter.getBytesWritten() / seconds / (1024 * 1024),
+                    (heapAfter - heapBefore) / 1024);
+
+            heapBefore = usedHeap();
+            begin = System.nanoTime();
+            try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+                for (RentalRecord record : history.getRentalHistory()) {
+                    out.println(record.toString());
+                }
+            }
+            seconds = (System.nanoTime() - begin) / 1e9;
+            heapAfter = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+            System.out.printf("toString() baseline:   %,d rows in %.2fs (%,.0f rows/s, %.1f MB/s, heap delta %d KB)%n",
+                    recordCount, seconds, recordCount / seconds, file.length() / seconds / (1024 * 1024),
+                    (heapAfter - heapBefore) / 1024);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static void runPricingBenchmark(int quoteCount) {
+        Random random = new Random(11);
+        Vehicle[] fleet = new Vehicle[10_000];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = LoadGenerator.createVehicle(i, random);
+        }
+        PricingEngine pricing = new PricingEngine();
+        LocalDate start = LocalDate.now();
+        double checksum = 0.0;
+        for (int i = 0; i < 100_000; i++) {
+            checksum += pricing.quoteRental(fleet[i % fleet.length], start.plusDays(i % 365), 1 + i % 14);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < quoteCount; i++) {
+            checksum += pricing.quoteRental(fleet[random.nextInt(fleet.length)], start.plusDays(random.nextInt(365)),
+                    1 + random.nextInt(14));
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("Quotes: %,d in %.2fs (%,.0f quotes/s, %.0f ns/quote, checksum %.0f)%n",
+                quoteCount, seconds, quoteCount / seconds, seconds * 1e9 / quoteCount, checksum);
+    }
+
+    private static void runOffHeapBenchmark(int recordCount) {
+        Random random = new Random(13);
+        Vehicle[] fleet = new Vehicle[1_000];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = LoadGenerator.createVehicle(i, random);
+        }
+        Customer[] customers = new Customer[5_000];
+        for (int i = 0; i < customers.length; i++) {
+            customers[i] = new Customer(i + 1, "Customer " + (i + 1));
+        }
+        LocalDate start = LocalDate.now().minusYears(2);
+        String plate = fleet[0].getLicensePlate();
+
+        long before = usedHeap();
+        RentalHistory heapHistory = new RentalHistory();
+        for (int i = 0; i < recordCount; i++) {
+            heapHistory.addRecord(new RentalRecord(fleet[random.nextInt(fleet.length)], customers[random.nextInt(customers.length)],
+                    start.plusDays(random.nextInt(730)), random.nextInt(50_000) / 100.0, i % 2 == 0 ? "RENT" : "RETURN"));
+        }
+        long heapBytes = usedHeap() - before;
+        long begin = System.nanoTime();
+        int heapMatches = heapHistory.getRentalRecordsByVehicle(plate).size();
+        double heapSeconds = (System.nanoTime() - begin) / 1e9;
+        Reference.reachabilityFence(heapHistory);
+        heapHistory = null;
+
+        before = usedHeap();
+        OffHeapRentalHistory offHeap = new OffHeapRentalHistory(p -> null, id -> null);
+        for (int i = 0; i < recordCount; i++) {
+            offHeap.addRecord(new RentalRecord(fleet[random.nextInt(fleet.length)], customers[random.nextInt(customers.length)],
+                    start.plusDays(random.nextInt(730)), random.nextInt(50_000) / 100.0, i % 2 == 0 ? "RENT" : "RETURN"));
+        }
+        long offHeapBytes = usedHeap() - before;
+        begin = System.nanoTime();
+        int[] offHeapMatches = new int[1];
+        offHeap.forEach(view -> {
+            if (view.plateEquals(plate)) offHeapMatches[0]++;
+        });
+        double offHeapSeconds = (System.nanoTime() - begin) / 1e9;
+
+        System.out.println("Records:                " + recordCount);
+        System.out.printf("Heap history:           %,d KB heap, plate scan %.1f ms (%d matches)%n",
+                heapBytes / 1024, heapSeconds * 1000, heapMatches);
+        System.out.printf("Off-heap history:       %,d KB heap, plate scan %.1f ms (%d matches)%n",
+                offHeapBytes / 1024, offHeapSeconds * 1000, offHeapMatches[0]);
+        Reference.reachabilityFence(offHeap);
+    }
+
+    private static String[] randomWords(int count, long seed) {
+        Random random = new Random(seed);
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = sb.toString() + i;
+        }
+        return words;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,111 @@
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+public class RentalCheckpoint {
+    private final int rentalsPerService;
+    private final Function<Vehicle, LocalDate> lastServiced;
+    private final Map<Vehicle, RentalRecord> openRentals = new IdentityHashMap<>();
+    private final Map<Vehicle, Integer> rentalCounts = new IdentityHashMap<>();
+    private final Map<Vehicle, LocalDate> serviceDates = new IdentityHashMap<>();
+    private final RentalAggregates aggregates = new RentalAggregates();
+
+    public RentalCheckpoint(int rentalsPerService, Function<Vehicle, LocalDate> lastServiced) {
+        this.rentalsPerService = rentalsPerService;
+        this.lastServiced = lastServiced;
+    }
+
+    public void apply(RentalRecord record) {
+        aggregates.recordAdded(record);
+        Vehicle vehicle = record.getVehicle();
+        if ("RENT".equals(record.getRecordType())) {
+            openRentals.put(vehicle, record);
+            LocalDate serviced = lastServiced.apply(vehicle);
+            if (serviced == null || record.getRecordDate().isAfter(serviced)) {
+                int count = rentalCounts.merge(vehicle, 1, Integer::sum);
+                if (count >= rentalsPerService && !serviceDates.containsKey(vehicle)) {
+                    serviceDates.put(vehicle, record.getDueDate() != null ? record.getDueDate() : record.getRecordDate());
+                }
+            }
+        } else if ("RETURN".equals(record.getRecordType())) {
+            openRentals.remove(vehicle);
+        }
+    }
+
+    public Map<Vehicle, RentalRecord> getOpenRentals() {
+        return openRentals;
+    }
+
+    public Map<Vehicle, Integer> getRentalCounts() {
+        return rentalCounts;
+    }
+
+    public LocalDate getServiceDate(Vehicle vehicle) {
+        return serviceDates.get(vehicle);
+    }
+
+    public RentalAggregates getAggregates() {
+        return aggregates;
+    }
+
+    public List<String> encode() {
+        List<String> lines = new ArrayList<>();
+        for (RentalRecord record : openRentals.values()) {
+            lines.add("O," + RentalRecordStore.formatRecord(record));
+        }
+        for (Map.Entry<Vehicle, Integer> entry : rentalCounts.entrySet()) {
+            Vehicle vehicle = entry.getKey();
+            LocalDate serviced = lastServiced.apply(vehicle);
+            LocalDate serviceDate = serviceDates.get(vehicle);
+            lines.add("S," + vehicle.getLicensePlate() + "," + entry.getValue() + "," +
+                      (serviced == null ? "" : serviced) + "," + (serviceDate == null ? "" : serviceDate));
+        }
+        aggregates.forEachRevenueDay((date, revenue) -> lines.add("D," + date + "," + revenue));
+        aggregates.forEachCustomerRentals((customerId, rentals) -> lines.add("U," + customerId + "," + rentals));
+        lines.add("N," + aggregates.getRecordCount());
+        return lines;
+    }
+
+    public boolean restore(List<String> lines, Function<String, RentalRecord> parser, Function<String, Vehicle> vehicles) {
+        boolean counted = false;
+        for (String line : lines) {
+            String[] fields = line.split(",", -1);
+            try {
+                if (line.startsWith("O,")) {
+                    RentalRecord record = parser.apply(line.substring(2));
+                    if (record != null) {
+                        openRentals.put(record.getVehicle(), record);
+                    }
+                } else if (line.startsWith("S,")) {
+                    if (fields.length < 5) return false;
+                    Vehicle vehicle = vehicles.apply(fields[1]);
+                    LocalDate servicedAsOf = fields[3].isEmpty() ? null : LocalDate.parse(fields[3]);
+                    // serviced since the checkpoint was taken: its cold rentals no longer count
+                    if (vehicle == null || !Objects.equals(servicedAsOf, lastServiced.apply(vehicle))) continue;
+                    rentalCounts.put(vehicle, Integer.parseInt(fields[2]));
+                    if (!fields[4].isEmpty()) {
+                        serviceDates.put(vehicle, LocalDate.parse(fields[4]));
+                    }
+                } else if (line.startsWith("D,") && fields.length == 3) {
+                    aggregates.addRevenue(LocalDate.parse(fields[1]), Double.parseDouble(fields[2]));
+                } else if (line.startsWith("U,") && fields.length == 3) {
+                    aggregates.addRentals(Integer.parseInt(fields[1]), Long.parseLong(fields[2]));
+                } else if (line.startsWith("N,") && fields.length == 2) {
+                    aggregates.addRecords(Long.parseLong(fields[1]));
+                    counted = true;
+                } else {
+                    return false;
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                return false;
+            }
+        }
+        // checkpoints written before the aggregates were stored have to be rebuilt
+        return counted;
+    }
+}
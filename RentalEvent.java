@@ -0,0 +1,72 @@
+import java.time.LocalDate;
+
+public class RentalEvent {
+    public enum Type { VEHICLE_ADDED, CUSTOMER_ADDED, VEHICLE_RENTED, VEHICLE_RETURNED, STATUS_CHANGED, VEHICLE_OVERDUE,
+                       MAINTENANCE_STARTED, MAINTENANCE_COMPLETED }
+
+    private final long sequence;
+    private final Type type;
+    private final Vehicle vehicle;
+    private final Customer customer;
+    private final RentalRecord record;
+    private final Vehicle.VehicleStatus previousStatus;
+    private final Vehicle.VehicleStatus newStatus;
+    private final LocalDate date;
+
+    public RentalEvent(long sequence, Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                       Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus) {
+        this(sequence, type, vehicle, customer, record, previousStatus, newStatus, null);
+    }
+
+    public RentalEvent(long sequence, Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                       Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus, LocalDate date) {
+        this.sequence = sequence;
+        this.type = type;
+        this.vehicle = vehicle;
+        this.customer = customer;
+        this.record = record;
+        this.previousStatus = previousStatus;
+        this.newStatus = newStatus;
+        this.date = date;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Vehicle getVehicle() {
+        return vehicle;
+    }
+
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public RentalRecord getRecord() {
+        return record;
+    }
+
+    public Vehicle.VehicleStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public Vehicle.VehicleStatus getNewStatus() {
+        return newStatus;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + type +
+               (vehicle != null ? " | Plate: " + vehicle.getLicensePlate() : "") +
+               (customer != null ? " | Customer: " + customer.getCustomerName() : "") +
+               (type == Type.STATUS_CHANGED ? " | " + previousStatus + " -> " + newStatus : "");
+    }
+}
@@ -0,0 +1,146 @@
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+public class RentalEventBus {
+    public enum OverflowPolicy { BLOCK, DROP_OLDEST }
+
+    private static final long POLL_MILLIS = 100;
+    private static final long BLOCK_TIMEOUT_MILLIS = 100;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public Subscription subscribe(String name, int capacity, OverflowPolicy policy) {
+        Subscription subscription = new Subscription(name, capacity, policy);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public Subscription subscribe(String name, int capacity, OverflowPolicy policy, Consumer<RentalEvent> listener) {
+        Subscription subscription = subscribe(name, capacity, policy);
+        Thread thread = new Thread(() -> subscription.dispatchTo(listener), "rental-events-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return subscription;
+    }
+
+    public void publish(RentalEvent.Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                        Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus) {
+        publish(type, vehicle, customer, record, previousStatus, newStatus, null);
+    }
+
+    public void publish(RentalEvent.Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                        Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus, LocalDate date) {
+        if (subscriptions.isEmpty()) return;
+
+        RentalEvent event = new RentalEvent(sequence.incrementAndGet(), type, vehicle, customer, record, previousStatus,
+                newStatus, date);
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    public long getLastSequence() {
+        return sequence.get();
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final String name;
+        private final BlockingQueue<RentalEvent> queue;
+        private final OverflowPolicy policy;
+        private final LongAdder dropped = new LongAdder();
+        private volatile boolean closed;
+        private volatile boolean failed;
+
+        private Subscription(String name, int capacity, OverflowPolicy policy) {
+            this.name = name;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.policy = policy;
+        }
+
+        private void offer(RentalEvent event) {
+            if (closed) return;
+
+            if (policy == OverflowPolicy.BLOCK) {
+                // publishers hold the system lock: a subscriber that stays full is cut off, the publish goes on
+                boolean accepted;
+                try {
+                    accepted = queue.offer(event, BLOCK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                if (!accepted) {
+                    dropped.increment();
+                    failed = true;
+                    close();
+                    System.err.println("Event subscriber " + name + " fell behind and was disconnected");
+                }
+            } else {
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+        }
+
+        private void dispatchTo(Consumer<RentalEvent> listener) {
+            try {
+                while (!closed) {
+                    RentalEvent event = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (event == null) continue;
+                    try {
+                        listener.accept(event);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error in event subscriber " + name + ": " + e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public RentalEvent poll() {
+            return queue.poll();
+        }
+
+        public RentalEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            return queue.poll(timeout, unit);
+        }
+
+        public int drainTo(Collection<RentalEvent> target, int maxEvents) {
+            return queue.drainTo(target, maxEvents);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getBacklog() {
+            return queue.size();
+        }
+
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            subscriptions.remove(this);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+public class RentalExporter {
+    public enum Format { CSV, JSON }
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final int MAX_FIELD_BYTES = 6;
+
+    private final Format format;
+    private LocalDate from = LocalDate.MIN;
+    private LocalDate to = LocalDate.MAX;
+    private Integer customerId;
+    private String plate;
+    private String recordType;
+
+    private ByteBuffer buffer;
+    private WritableByteChannel channel;
+    private long bytesWritten;
+
+    public RentalExporter(Format format) {
+        this.format = format;
+    }
+
+    public RentalExporter between(LocalDate from, LocalDate to) {
+        this.from = from == null ? LocalDate.MIN : from;
+        this.to = to == null ? LocalDate.MAX : to;
+        return this;
+    }
+
+    public RentalExporter forCustomer(int customerId) {
+        this.customerId = customerId;
+        return this;
+    }
+
+    public RentalExporter forVehicle(String plate) {
+        this.plate = plate == null ? null : plate.toUpperCase();
+        return this;
+    }
+
+    public RentalExporter ofType(String recordType) {
+        this.recordType = recordType == null ? null : recordType.toUpperCase();
+        return this;
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java RentalExporter <outFile> [csv|json] [--from=YYYY-MM-DD] [--to=YYYY-MM-DD]");
+            System.out.println("       [--customer=ID] [--plate=ABC123] [--type=RENT|RETURN] [--dir=dataDir]");
+            return;
+        }
+        Format format = args.length > 1 && "json".equalsIgnoreCase(args[1]) ? Format.JSON : Format.CSV;
+        RentalExporter exporter = new RentalExporter(format);
+        File dataDir = null;
+        LocalDate from = null;
+        LocalDate to = null;
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--from=")) from = LocalDate.parse(value);
+            else if (arg.startsWith("--to=")) to = LocalDate.parse(value);
+            else if (arg.startsWith("--customer=")) exporter.forCustomer(Integer.parseInt(value));
+            else if (arg.startsWith("--plate=")) exporter.forVehicle(value);
+            else if (arg.startsWith("--type=")) exporter.ofType(value);
+            else if (arg.startsWith("--dir=")) dataDir = new File(value);
+        }
+        exporter.between(from, to);
+
+        RentalSystem rentalSystem = dataDir == null ? RentalSystem.getInstance() : RentalSystem.forDirectory(dataDir);
+        long start = System.nanoTime();
+        long rows = exporter.export(rentalSystem.getRentalHistory(), new File(args[0]));
+        System.out.printf("Exported %d records (%d KB) to %s in %d ms%n",
+                rows, exporter.getBytesWritten() / 1024, args[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public long export(RentalHistory history, File file) throws IOException {
+        try (FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(history, out);
+        }
+    }
+
+    public long export(RentalHistory history, WritableByteChannel out) throws IOException {
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        channel = out;
+        bytesWritten = 0;
+        long[] rows = new long[1];
+        try {
+            if (format == Format.CSV) {
+                putAscii("type,plate,customerId,customerName,date,amount,requestId\n");
+            }
+            history.scan(from, to, record -> {
+                if (!matches(record)) return;
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(record);
+                    } else {
+                        writeJson(record);
+                    }
+                } catch (IOException e) {
+                    throw new ExportException(e);
+                }
+                rows[0]++;
+            });
+            flush();
+        } catch (ExportException e) {
+            throw (IOException) e.getCause();
+        } finally {
+            buffer = null;
+            channel = null;
+        }
+        return rows[0];
+    }
+
+    private boolean matches(RentalRecord record) {
+        if (customerId != null && record.getCustomer().getCustomerId() != customerId) return false;
+        if (plate != null && !plate.equalsIgnoreCase(record.getVehicle().getLicensePlate())) return false;
+        return recordType == null || recordType.equals(record.getRecordType());
+    }
+
+    private void writeCsv(RentalRecord record) throws IOException {
+        putAscii(record.getRecordType());
+        putByte(',');
+        putCsvField(record.getVehicle().getLicensePlate());
+        putByte(',');
+        putLong(record.getCustomer().getCustomerId());
+        putByte(',');
+        putCsvField(record.getCustomer().getCustomerName());
+        putByte(',');
+        putDate(record.getRecordDate());
+        putByte(',');
+        putAmount(record.getTotalAmount());
+        putByte(',');
+        putCsvField(record.getRequestId());
+        putByte('\n');
+    }
+
+    private void writeJson(RentalRecord record) throws IOException {
+        putAscii("{\"type\":\"");
+        putAscii(record.getRecordType());
+        putAscii("\",\"plate\":");
+        putJsonString(record.getVehicle().getLicensePlate());
+        putAscii(",\"customerId\":");
+        putLong(record.getCustomer().getCustomerId());
+        putAscii(",\"customerName\":");
+        putJsonString(record.getCustomer().getCustomerName());
+        putAscii(",\"date\":\"");
+        putDate(record.getRecordDate());
+        putAscii("\",\"amount\":");
+        putAmount(record.getTotalAmount());
+        if (record.getRequestId() != null) {
+            putAscii(",\"requestId\":");
+            putJsonString(record.getRequestId());
+        }
+        putAscii("}\n");
+    }
+
+    private void putCsvField(String s) throws IOException {
+        if (s == null) return;
+        boolean quoted = false;
+        for (int i = 0; i < s.length() && !quoted; i++) {
+            char c = s.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (quoted) putByte('"');
+        putText(s, quoted);
+        if (quoted) putByte('"');
+    }
+
+    private void putJsonString(String s) throws IOException {
+        if (s == null) {
+            putAscii("null");
+            return;
+        }
+        putByte('"');
+        putText(s, false);
+        putByte('"');
+    }
+
+    private void putByte(char c) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put((byte) c);
+    }
+
+    private void putAscii(String s) throws IOException {
+        if (buffer.remaining() < s.length()) flush();
+        if (s.length() > buffer.remaining()) {
+            putText(s, false);
+            return;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            buffer.put((byte) s.charAt(i));
+        }
+    }
+
+    private void putText(String s, boolean csvQuoted) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            if (buffer.remaining() < MAX_FIELD_BYTES) flush();
+            char c = s.charAt(i);
+            if (csvQuoted) {
+                if (c == '"') buffer.put((byte) '"');
+            } else if (format == Format.JSON && (c == '"' || c == '\\')) {
+                buffer.put((byte) '\\');
+            } else if (format == Format.JSON && c < 0x20) {
+                buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0')
+                        .put((byte) Character.forDigit(c >> 4, 16)).put((byte) Character.forDigit(c & 0xF, 16));
+                continue;
+            }
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | cp >> 18)).put((byte) (0x80 | cp >> 12 & 0x3F))
+                        .put((byte) (0x80 | cp >> 6 & 0x3F)).put((byte) (0x80 | cp & 0x3F));
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        if (value < 0) {
+            putByte('-');
+            value = -value;
+        }
+        long divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            putByte((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void putDigits(int value, int width) throws IOException {
+        int divisor = 1;
+        for (int i = 1; i < width; i++) divisor *= 10;
+        for (; divisor > 0; divisor /= 10) {
+            putByte((char) ('0' + value / divisor % 10));
+        }
+    }
+
+    private void putDate(LocalDate date) throws IOException {
+        putDigits(date.getYear(), 4);
+        putByte('-');
+        putDigits(date.getMonthValue(), 2);
+        putByte('-');
+        putDigits(date.getDayOfMonth(), 2);
+    }
+
+    private void putAmount(double amount) throws IOException {
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            putByte('-');
+            cents = -cents;
+        }
+        putLong(cents / 100);
+        putByte('.');
+        putDigits((int) (cents % 100), 2);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static class ExportException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        ExportException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -1,34 +1,210 @@
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 public class RentalHistory {
-    private List<RentalRecord> rentalRecords = new ArrayList<>();
+    private final SnapshotList<RentalRecord> rentalRecords = new SnapshotList<>();
+    private final Map<YearMonth, SnapshotList<RentalRecord>> recordsByMonth = new HashMap<>();
+    private final RentalAggregates aggregates = new RentalAggregates();
+    private RentalRecordStore recordStore;
+    private final QueryCache<String, List<RentalRecord>> customerQueries = new QueryCache<>(QUERY_CACHE_SIZE, QUERY_CACHE_AGE_MILLIS);
+    private final QueryCache<String, List<RentalRecord>> vehicleQueries = new QueryCache<>(QUERY_CACHE_SIZE, QUERY_CACHE_AGE_MILLIS);
 
-    public void addRecord(RentalRecord record) {
+    private static final int QUERY_CACHE_SIZE = 1_000;
+    private static final long QUERY_CACHE_AGE_MILLIS = 60_000;
+    private static final int MAX_PAGE_SIZE = 1_000;
+    private static final int MAX_PAGE_SCAN = 50_000;
+
+    public synchronized void addRecord(RentalRecord record) {
+        YearMonth month = YearMonth.from(record.getRecordDate());
+        SnapshotList<RentalRecord> monthRecords = recordsByMonth.computeIfAbsent(month, m -> new SnapshotList<>());
+        if (record.getSequence() == 0) {
+            record.setSequence(RentalRecordStore.sequence(month, monthRecords.size() + 1));
+        }
         rentalRecords.add(record);
+        monthRecords.add(record);
+        aggregates.recordAdded(record);
+
+        String customer = record.getCustomer().toString().toLowerCase();
+        customerQueries.invalidateIf(customer::contains);
+        String plate = record.getVehicle().getLicensePlate();
+        if (plate != null) {
+            vehicleQueries.invalidate(plate.toUpperCase());
+        }
+    }
+
+    public QueryCache<String, List<RentalRecord>> getCustomerQueryCache() {
+        return customerQueries;
+    }
+
+    public QueryCache<String, List<RentalRecord>> getVehicleQueryCache() {
+        return vehicleQueries;
+    }
+
+    public RentalAggregates getAggregates() {
+        return aggregates;
+    }
+
+    public void setRecordStore(RentalRecordStore recordStore) {
+        this.recordStore = recordStore;
+    }
+
+    public List<RentalRecord> getRentalRecordsBetween(LocalDate from, LocalDate to) {
+        List<RentalRecord> result = new ArrayList<>();
+        if (recordStore != null) {
+            result.addAll(recordStore.loadRange(from, to));
+        }
+        for (RentalRecord record : rentalRecords.snapshot()) {
+            LocalDate date = record.getRecordDate();
+            if (date.isBefore(from) || date.isAfter(to)) continue;
+            if (recordStore != null && !recordStore.isHot(date)) continue;
+            result.add(record);
+        }
+        return result;
+    }
+
+    public void scan(LocalDate from, LocalDate to, Consumer<RentalRecord> sink) {
+        if (recordStore != null) {
+            recordStore.scanRange(from, to, sink);
+        }
+        for (RentalRecord record : rentalRecords.snapshot()) {
+            LocalDate date = record.getRecordDate();
+            if (date.isBefore(from) || date.isAfter(to)) continue;
+            if (recordStore != null && !recordStore.isHot(date)) continue;
+            sink.accept(record);
+        }
     }
 
     public List<RentalRecord> getRentalHistory() {
-        return rentalRecords;
+        return rentalRecords.snapshot();
+    }
+
+    public int size() {
+        return rentalRecords.size();
+    }
+
+    public HistoryPage getPage(long cursor, int pageSize, boolean newestFirst) {
+        return getPage(cursor, pageSize, newestFirst, null);
+    }
+
+    public HistoryPage getPage(long cursor, int pageSize, boolean newestFirst, Predicate<RentalRecord> filter) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        NavigableSet<YearMonth> months = pageMonths();
+        if (newestFirst) {
+            months = months.descendingSet();
+        }
+        YearMonth start = cursor > 0 ? RentalRecordStore.monthOf(cursor) : null;
+        if (start != null) {
+            months = months.tailSet(start, true);
+        }
+
+        List<RentalRecord> records = new ArrayList<>(Math.min(pageSize, 64));
+        long next = cursor;
+        int scanned = 0;
+        for (YearMonth month : months) {
+            List<RentalRecord> monthRecords = monthRecords(month);
+            int step = newestFirst ? -1 : 1;
+            int index;
+            if (month.equals(start)) {
+                index = newestFirst ? firstAfter(monthRecords, cursor - 1) - 1 : firstAfter(monthRecords, cursor);
+            } else {
+                index = newestFirst ? monthRecords.size() - 1 : 0;
+            }
+            while (index >= 0 && index < monthRecords.size()) {
+                if (records.size() >= pageSize || scanned >= MAX_PAGE_SCAN) {
+                    return new HistoryPage(records, next, true, historySize());
+                }
+                RentalRecord record = monthRecords.get(index);
+                if (filter == null || filter.test(record)) {
+                    records.add(record);
+                }
+                next = record.getSequence();
+                index += step;
+                scanned++;
+            }
+        }
+        return new HistoryPage(records, next, false, historySize());
+    }
+
+    private NavigableSet<YearMonth> pageMonths() {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        synchronized (this) {
+            months.addAll(recordsByMonth.keySet());
+        }
+        if (recordStore != null) {
+            YearMonth hotSince = recordStore.getHotSince();
+            months.removeIf(month -> month.isBefore(hotSince));
+            for (YearMonth month : recordStore.listSegments()) {
+                if (month.isBefore(hotSince)) months.add(month);
+            }
+        }
+        return months;
+    }
+
+    private List<RentalRecord> monthRecords(YearMonth month) {
+        if (recordStore != null && month.isBefore(recordStore.getHotSince())) {
+            return recordStore.loadMonth(month);
+        }
+        SnapshotList<RentalRecord> monthRecords;
+        synchronized (this) {
+            monthRecords = recordsByMonth.get(month);
+        }
+        return monthRecords == null ? Collections.emptyList() : monthRecords.snapshot();
+    }
+
+    private static int firstAfter(List<RentalRecord> records, long sequence) {
+        int low = 0;
+        int high = records.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (records.get(mid).getSequence() <= sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int historySize() {
+        return (int) Math.min(Integer.MAX_VALUE, aggregates.getRecordCount());
     }
 
     public List<RentalRecord> getRentalRecordsByCustomer(String customerName) {
+        return customerQueries.get(customerName.toLowerCase(), this::findByCustomer);
+    }
+
+    public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
+        return vehicleQueries.get(licensePlate.toUpperCase(), this::findByVehicle);
+    }
+
+    private List<RentalRecord> findByCustomer(String customerName) {
         List<RentalRecord> result = new ArrayList<>();
-        for (RentalRecord record : rentalRecords) {
-            if (record.getCustomer().toString().toLowerCase().contains(customerName.toLowerCase())) {
+        scan(LocalDate.MIN, LocalDate.MAX, record -> {
+            if (record.getCustomer().toString().toLowerCase().contains(customerName)) {
                 result.add(record);
             }
-        }
-        return result;
+        });
+        return Collections.unmodifiableList(result);
     }
 
-    public List<RentalRecord> getRentalRecordsByVehicle(String licensePlate) {
+    private List<RentalRecord> findByVehicle(String licensePlate) {
         List<RentalRecord> result = new ArrayList<>();
-        for (RentalRecord record : rentalRecords) {
+        scan(LocalDate.MIN, LocalDate.MAX, record -> {
             if (record.getVehicle().getLicensePlate().equalsIgnoreCase(licensePlate)) {
                 result.add(record);
             }
-        }
-        return result;
+        });
+        return Collections.unmodifiableList(result);
     }
 }
\ No newline at end of file
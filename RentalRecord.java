@@ -6,13 +6,27 @@ public class RentalRecord {
     private LocalDate recordDate;
     private double totalAmount;
     private String recordType; 
+    private String requestId;
+    private LocalDate dueDate;
+    private long sequence;
 
     public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, double totalAmount, String recordType) {
+        this(vehicle, customer, recordDate, totalAmount, recordType, null);
+    }
+
+    public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, double totalAmount, String recordType, String requestId) {
+        this(vehicle, customer, recordDate, totalAmount, recordType, requestId, null);
+    }
+
+    public RentalRecord(Vehicle vehicle, Customer customer, LocalDate recordDate, double totalAmount, String recordType,
+                        String requestId, LocalDate dueDate) {
         this.vehicle = vehicle;
         this.customer = customer;
         this.recordDate = recordDate;
         this.totalAmount = totalAmount;
         this.recordType = recordType;
+        this.requestId = requestId;
+        this.dueDate = dueDate;
     }
     public LocalDate getRecordDate() {
         return recordDate;
@@ -33,6 +47,22 @@ public class RentalRecord {
     public Vehicle getVehicle(){
     	return vehicle;
     }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
     
     @Override
     public String toString() {
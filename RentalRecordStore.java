@@ -0,0 +1,521 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class RentalRecordStore {
+    private static final String LEGACY_FILE = "rentalrecords.txt";
+    private static final String SEGMENT_PREFIX = "rentalrecords-";
+    private static final String SEGMENT_SUFFIX = ".txt";
+    private static final String MAPPED_SUFFIX = ".bin";
+    private static final String UNMATCHED_FILE = LEGACY_FILE + ".unmatched";
+    private static final String PENDING_SUFFIX = ".migrating";
+    private static final int OFF_HEAP_SLOTS_PER_CHUNK = 1 << 14;
+    private static final String CHECKPOINT_FILE = "rental-checkpoint.txt";
+    private static final String CHECKPOINT_HEADER = "BOUNDARY,";
+
+    private final File directory;
+    private final int hotMonths;
+    private final int maxColdSegments;
+    private final Function<String, Vehicle> vehicleLookup;
+    private final Function<Integer, Customer> customerLookup;
+    private final Function<String, Customer> customerNameLookup;
+    private final Map<YearMonth, List<RentalRecord>> coldSegments;
+    private final Map<YearMonth, OffHeapRentalHistory> offHeapSegments;
+    private final Map<YearMonth, Long> lineCounts = new HashMap<>();
+    private boolean offHeapColdTier;
+    private YearMonth checkpointBoundary;
+
+    public RentalRecordStore(File directory, int hotMonths, int maxColdSegments,
+                             Function<String, Vehicle> vehicleLookup, Function<Integer, Customer> customerLookup,
+                             Function<String, Customer> customerNameLookup) {
+        if (hotMonths < 1) throw new IllegalArgumentException("Hot months must be >= 1");
+        this.directory = directory;
+        this.hotMonths = hotMonths;
+        this.maxColdSegments = maxColdSegments;
+        this.vehicleLookup = vehicleLookup;
+        this.customerLookup = customerLookup;
+        this.customerNameLookup = customerNameLookup;
+        this.coldSegments = segmentCache();
+        this.offHeapSegments = segmentCache();
+        this.checkpointBoundary = readCheckpointBoundary();
+    }
+
+    private <T> Map<YearMonth, T> segmentCache() {
+        return new LinkedHashMap<YearMonth, T>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<YearMonth, T> eldest) {
+                if (size() <= RentalRecordStore.this.maxColdSegments) return false;
+                closeSegment(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    private static void closeSegment(Object segment) {
+        if (!(segment instanceof OffHeapRentalHistory)) return;
+        try {
+            ((OffHeapRentalHistory) segment).close();
+        } catch (IOException e) {
+            System.err.println("Error closing mapped segment: " + e.getMessage());
+        }
+    }
+
+    public synchronized void setOffHeapColdTier(boolean offHeapColdTier) {
+        this.offHeapColdTier = offHeapColdTier;
+        coldSegments.clear();
+        offHeapSegments.values().forEach(RentalRecordStore::closeSegment);
+        offHeapSegments.clear();
+    }
+
+    public boolean isOffHeapColdTier() {
+        return offHeapColdTier;
+    }
+
+    public YearMonth getHotSince() {
+        return YearMonth.now().minusMonths(hotMonths - 1);
+    }
+
+    public boolean isHot(LocalDate date) {
+        return !YearMonth.from(date).isBefore(getHotSince());
+    }
+
+    public File segmentFile(YearMonth month) {
+        return segmentFile(directory, month);
+    }
+
+    public static File segmentFile(File directory, YearMonth month) {
+        return new File(directory, SEGMENT_PREFIX + month + SEGMENT_SUFFIX);
+    }
+
+    public File mappedSegmentFile(YearMonth month) {
+        return new File(directory, SEGMENT_PREFIX + month + MAPPED_SUFFIX);
+    }
+
+    public static File checkpointFile(File directory) {
+        return new File(directory, CHECKPOINT_FILE);
+    }
+
+    public static long sequence(YearMonth month, long line) {
+        return ((long) (month.getYear() * 12 + month.getMonthValue() - 1) << 32) | line;
+    }
+
+    public static YearMonth monthOf(long sequence) {
+        int months = (int) (sequence >>> 32);
+        return YearMonth.of(months / 12, months % 12 + 1);
+    }
+
+    public static String formatRecord(RentalRecord record) {
+        String optional;
+        if (record.getDueDate() != null) {
+            optional = "," + (record.getRequestId() == null ? "" : record.getRequestId()) + "," + record.getDueDate();
+        } else {
+            optional = record.getRequestId() == null ? "" : "," + record.getRequestId();
+        }
+        return String.format(Locale.ROOT, "%s,%s,%d,%s,%.2f%s",
+            record.getRecordType(),
+            record.getVehicle().getLicensePlate(),
+            record.getCustomer().getCustomerId(),
+            record.getRecordDate(),
+            record.getTotalAmount(),
+            optional);
+    }
+
+    public TreeSet<YearMonth> listSegments() {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        File[] files = directory.listFiles();
+        if (files == null) return months;
+
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) continue;
+            try {
+                months.add(YearMonth.parse(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            } catch (DateTimeParseException e) {
+                // not a segment file
+            }
+        }
+        return months;
+    }
+
+    public synchronized void loadHot(Consumer<RentalRecord> sink) {
+        migrateLegacyFile();
+        YearMonth hotSince = getHotSince();
+        for (YearMonth month : listSegments()) {
+            if (!month.isBefore(hotSince)) {
+                lineCounts.put(month, readSegment(month, sink));
+            }
+        }
+    }
+
+    public synchronized void scanMonths(YearMonth from, YearMonth until, Consumer<RentalRecord> sink) {
+        migrateLegacyFile();
+        for (YearMonth month : listSegments()) {
+            if ((from == null || !month.isBefore(from)) && month.isBefore(until)) {
+                readSegment(month, sink);
+            }
+        }
+    }
+
+    public synchronized YearMonth getCheckpointBoundary() {
+        return checkpointBoundary;
+    }
+
+    public synchronized List<String> readCheckpoint() {
+        List<String> lines = new ArrayList<>();
+        if (checkpointBoundary == null) return lines;
+        try (BufferedReader br = new BufferedReader(new FileReader(checkpointFile(directory)))) {
+            br.readLine();
+            String line;
+            while ((line = br.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return lines;
+    }
+
+    public synchronized void writeCheckpoint(YearMonth boundary, List<String> lines) {
+        File target = checkpointFile(directory);
+        File pending = new File(target.getPath() + ".tmp");
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(pending)))) {
+            out.println(CHECKPOINT_HEADER + boundary);
+            for (String line : lines) {
+                out.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving checkpoint: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(pending.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpointBoundary = boundary;
+        } catch (IOException e) {
+            System.err.println("Error saving checkpoint: " + e.getMessage());
+        }
+    }
+
+    public synchronized void invalidateCheckpoint(YearMonth month) {
+        if (checkpointBoundary != null && month.isBefore(checkpointBoundary)) {
+            dropCheckpoint();
+        }
+    }
+
+    private void dropCheckpoint() {
+        checkpointBoundary = null;
+        File file = checkpointFile(directory);
+        if (file.exists() && !file.delete()) {
+            System.err.println("Error: could not remove stale checkpoint " + checkpointFile(directory).getPath());
+        }
+    }
+
+    private YearMonth readCheckpointBoundary() {
+        File file = checkpointFile(directory);
+        if (!file.exists()) return null;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String header = br.readLine();
+            if (header != null && header.startsWith(CHECKPOINT_HEADER)) {
+                return YearMonth.parse(header.substring(CHECKPOINT_HEADER.length()));
+            }
+        } catch (IOException | DateTimeParseException e) {
+            System.err.println("Ignoring unreadable checkpoint: " + e.getMessage());
+        }
+        return null;
+    }
+
+    public synchronized List<RentalRecord> loadRange(LocalDate from, LocalDate to) {
+        List<RentalRecord> result = new ArrayList<>();
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        YearMonth hotSince = getHotSince();
+
+        for (YearMonth month : listSegments()) {
+            if (month.isBefore(first) || month.isAfter(last) || !month.isBefore(hotSince)) continue;
+            if (offHeapColdTier) {
+                long fromDay = from.toEpochDay();
+                long toDay = to.toEpochDay();
+                offHeapSegment(month).forEach(view -> {
+                    long day = view.getEpochDay();
+                    if (day >= fromDay && day <= toDay) {
+                        RentalRecord record = view.toRentalRecord();
+                        if (record != null) result.add(record);
+                    }
+                });
+                continue;
+            }
+            for (RentalRecord record : coldSegment(month)) {
+                LocalDate date = record.getRecordDate();
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    public void scanRange(LocalDate from, LocalDate to, Consumer<RentalRecord> sink) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        YearMonth hotSince = getHotSince();
+
+        for (YearMonth month : listSegments()) {
+            if (month.isBefore(first) || month.isAfter(last) || !month.isBefore(hotSince)) continue;
+            readSegment(month, record -> {
+                LocalDate date = record.getRecordDate();
+                if (!date.isBefore(from) && !date.isAfter(to)) {
+                    sink.accept(record);
+                }
+            });
+        }
+    }
+
+    public synchronized List<RentalRecord> loadMonth(YearMonth month) {
+        if (!offHeapColdTier) {
+            return Collections.unmodifiableList(coldSegment(month));
+        }
+        List<RentalRecord> records = new ArrayList<>();
+        offHeapSegment(month).forEach(view -> {
+            RentalRecord record = view.toRentalRecord();
+            if (record != null) records.add(record);
+        });
+        return records;
+    }
+
+    public synchronized void append(RentalRecord record) {
+        YearMonth month = YearMonth.from(record.getRecordDate());
+        Long lines = lineCounts.get(month);
+        if (lines == null) {
+            lines = readSegment(month, r -> { });
+        }
+        record.setSequence(sequence(month, lines + 1));
+        try (PrintWriter out = new PrintWriter(new FileWriter(segmentFile(month), true))) {
+            out.println(formatRecord(record));
+            lineCounts.put(month, lines + 1);
+        } catch (IOException e) {
+            System.err.println("Error saving record: " + e.getMessage());
+        }
+        coldSegments.remove(month);
+        closeSegment(offHeapSegments.remove(month));
+        invalidateCheckpoint(month);
+    }
+
+    private List<RentalRecord> coldSegment(YearMonth month) {
+        List<RentalRecord> records = coldSegments.get(month);
+        if (records == null) {
+            records = new ArrayList<>();
+            readSegment(month, records::add);
+            coldSegments.put(month, records);
+        }
+        return records;
+    }
+
+    private OffHeapRentalHistory offHeapSegment(YearMonth month) {
+        OffHeapRentalHistory segment = offHeapSegments.get(month);
+        if (segment == null) {
+            segment = mapSegment(month);
+            offHeapSegments.put(month, segment);
+        }
+        return segment;
+    }
+
+    private OffHeapRentalHistory mapSegment(YearMonth month) {
+        File source = segmentFile(month);
+        File mapped = mappedSegmentFile(month);
+        try {
+            if (mapped.exists()) {
+                OffHeapRentalHistory segment = OffHeapRentalHistory.mapped(mapped, OFF_HEAP_SLOTS_PER_CHUNK,
+                        vehicleLookup, customerLookup);
+                // segments only grow, so a matching length means nothing was appended since the build
+                if (segment.getSourceLength() == source.length()) return segment;
+                segment.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Rebuilding unreadable segment " + mapped.getPath() + ": " + e.getMessage());
+        }
+
+        OffHeapRentalHistory.delete(mapped);
+        OffHeapRentalHistory segment;
+        try {
+            segment = OffHeapRentalHistory.mapped(mapped, OFF_HEAP_SLOTS_PER_CHUNK, vehicleLookup, customerLookup);
+        } catch (IOException e) {
+            System.err.println("Error mapping " + mapped.getPath() + ", keeping it in memory: " + e.getMessage());
+            segment = new OffHeapRentalHistory(OFF_HEAP_SLOTS_PER_CHUNK, vehicleLookup, customerLookup);
+        }
+        readSegment(month, segment::addRecord);
+        segment.setSourceLength(source.length());
+        return segment;
+    }
+
+    private long readSegment(YearMonth month, Consumer<RentalRecord> sink) {
+        File file = segmentFile(month);
+        long lines = 0;
+        if (!file.exists()) return lines;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                lines++;
+                RentalRecord record = parseRecord(line);
+                if (record != null) {
+                    // the position in the segment is the record's stable identity, also for paging cursors
+                    record.setSequence(sequence(month, lines));
+                    sink.accept(record);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return lines;
+    }
+
+    public RentalRecord parseRecord(String line) {
+        String[] parts = line.split(",");
+        if (parts.length < 5) return null;
+
+        try {
+            String recordType = AttributeDictionary.RECORD_TYPES.lookup(parts[0]);
+            Vehicle vehicle = vehicleLookup.apply(parts[1]);
+            Customer customer = customerLookup.apply(Integer.parseInt(parts[2]));
+            LocalDate date = LocalDate.parse(parts[3]);
+            double amount = Double.parseDouble(parts[4]);
+            String requestId = parts.length > 5 && !parts[5].isEmpty() ? parts[5] : null;
+            LocalDate dueDate = parts.length > 6 ? LocalDate.parse(parts[6]) : null;
+
+            if (vehicle == null || customer == null) return null;
+            return new RentalRecord(vehicle, customer, date, amount, recordType, requestId, dueDate);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public synchronized void migrateLegacyFile() {
+        File legacy = new File(directory, LEGACY_FILE);
+        if (!legacy.exists()) {
+            finishMigration(false);
+            return;
+        }
+        finishMigration(true);
+
+        Map<File, PrintWriter> writers = new LinkedHashMap<>();
+        Map<String, Customer> customersByName = new HashMap<>();
+        boolean failed = false;
+        try (BufferedReader br = new BufferedReader(new FileReader(legacy))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String converted = convertLegacyLine(line, customersByName);
+                File target;
+                if (converted == null) {
+                    converted = line;
+                    target = new File(directory, UNMATCHED_FILE);
+                } else {
+                    target = segmentFile(YearMonth.from(LocalDate.parse(converted.split(",")[3])));
+                }
+                PrintWriter out = writers.get(target);
+                if (out == null) {
+                    out = new PrintWriter(new BufferedWriter(new FileWriter(pendingFile(target))));
+                    copyInto(target, out);
+                    writers.put(target, out);
+                }
+                out.println(converted);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            failed = true;
+        } finally {
+            for (PrintWriter out : writers.values()) {
+                out.close();
+            }
+        }
+        if (failed) {
+            finishMigration(true);
+            return;
+        }
+
+        try {
+            Files.move(legacy.toPath(), new File(directory, LEGACY_FILE + ".migrated").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Error: could not rename " + legacy.getPath() + " after migration: " + e.getMessage());
+            finishMigration(true);
+            return;
+        }
+        finishMigration(false);
+    }
+
+    private String convertLegacyLine(String line, Map<String, Customer> customersByName) {
+        String[] parts = line.split(",");
+        if (parts.length < 5) return null;
+        if (isDate(parts[3])) {
+            return line;
+        }
+
+        int last = parts.length - 1;
+        if (!isDate(parts[last - 2])) return null;
+        try {
+            Double.parseDouble(parts[last - 1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        String name = String.join(",", Arrays.copyOfRange(parts, 1, last - 2));
+        Customer customer = customersByName.computeIfAbsent(name, customerNameLookup);
+        if (customer == null) return null;
+        return parts[last] + "," + parts[0] + "," + customer.getCustomerId() + "," + parts[last - 2] + "," + parts[last - 1];
+    }
+
+    private static boolean isDate(String text) {
+        try {
+            LocalDate.parse(text);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static File pendingFile(File target) {
+        return new File(target.getPath() + PENDING_SUFFIX);
+    }
+
+    private static void copyInto(File source, PrintWriter out) throws IOException {
+        if (!source.exists()) return;
+        try (BufferedReader br = new BufferedReader(new FileReader(source))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                out.println(line);
+            }
+        }
+    }
+
+    private void finishMigration(boolean discard) {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(PENDING_SUFFIX));
+        if (files == null) return;
+
+        for (File pending : files) {
+            String path = pending.getPath();
+            try {
+                if (discard) {
+                    Files.delete(pending.toPath());
+                } else {
+                    Files.move(pending.toPath(), new File(path.substring(0, path.length() - PENDING_SUFFIX.length())).toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    dropCheckpoint();
+                    lineCounts.clear();
+                }
+            } catch (IOException e) {
+                System.err.println("Error finishing migration of " + path + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class RentalService {
+    private static final long OVERDUE_CHECK_MILLIS = 60 * 60 * 1000;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "rental-service");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile CompletableFuture<RentalSystem> system;
+
+    public synchronized CompletableFuture<RentalSystem> start() {
+        if (system == null) {
+            system = CompletableFuture.supplyAsync(() -> {
+                RentalSystem rentalSystem = RentalSystem.getInstance();
+                rentalSystem.startOverdueChecks(OVERDUE_CHECK_MILLIS);
+                return rentalSystem;
+            }, executor);
+        }
+        return system;
+    }
+
+    public <T> CompletableFuture<T> submit(Function<RentalSystem, T> task) {
+        return start().thenApplyAsync(task, executor);
+    }
+
+    public CompletableFuture<Boolean> addVehicle(Vehicle vehicle) {
+        return submit(rs -> rs.addVehicle(vehicle));
+    }
+
+    public CompletableFuture<Boolean> addCustomer(Customer customer) {
+        return submit(rs -> rs.addCustomer(customer));
+    }
+
+    public CompletableFuture<Boolean> rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
+        return submit(rs -> rs.rentVehicle(vehicle, customer, date, amount));
+    }
+
+    public CompletableFuture<Boolean> returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+        return submit(rs -> rs.returnVehicle(vehicle, customer, date, extraFees));
+    }
+
+    public CompletableFuture<Double> quoteRental(Vehicle vehicle, LocalDate date, int days) {
+        return submit(rs -> rs.quoteRental(vehicle, date, days));
+    }
+
+    public CompletableFuture<Double> quoteReturn(Vehicle vehicle, LocalDate date) {
+        return submit(rs -> rs.quoteReturn(vehicle, date));
+    }
+
+    public CompletableFuture<Boolean> rentVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date, int days) {
+        return submit(rs -> rs.rentVehicleQuoted(vehicle, customer, date, days));
+    }
+
+    public CompletableFuture<Boolean> returnVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date) {
+        return submit(rs -> rs.returnVehicleQuoted(vehicle, customer, date));
+    }
+
+    public CompletableFuture<Boolean> rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount, String requestId) {
+        return submit(rs -> rs.rentVehicle(vehicle, customer, date, amount, requestId));
+    }
+
+    public CompletableFuture<Boolean> returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees, String requestId) {
+        return submit(rs -> rs.returnVehicle(vehicle, customer, date, extraFees, requestId));
+    }
+
+    public CompletableFuture<RentalEventBus.Subscription> subscribe(String name, int capacity, Consumer<RentalEvent> listener) {
+        return submit(rs -> rs.getEventBus().subscribe(name, capacity, RentalEventBus.OverflowPolicy.DROP_OLDEST, listener));
+    }
+
+    public CompletableFuture<List<Vehicle>> getVehicles() {
+        return submit(rs -> new ArrayList<>(rs.getVehicles()));
+    }
+
+    public CompletableFuture<List<Customer>> getCustomers() {
+        return submit(rs -> new ArrayList<>(rs.getCustomers()));
+    }
+
+    public CompletableFuture<Integer> getHistorySize() {
+        return submit(rs -> rs.getRentalHistory().size());
+    }
+
+    public CompletableFuture<HistoryPage> getHistoryPage(long cursor, int pageSize, boolean newestFirst) {
+        return submit(rs -> rs.getRentalHistory().getPage(cursor, pageSize, newestFirst));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.List;
+
+public class RentalSnapshot {
+    private final List<Vehicle> vehicles;
+    private final VehicleStatusTable statuses;
+    private final List<Customer> customers;
+    private final List<RentalRecord> rentalHistory;
+
+    public RentalSnapshot(List<Vehicle> vehicles, VehicleStatusTable statuses,
+                          List<Customer> customers, List<RentalRecord> rentalHistory) {
+        this.vehicles = vehicles;
+        this.statuses = statuses;
+        this.customers = customers;
+        this.rentalHistory = rentalHistory;
+    }
+
+    public long getVersion() {
+        return statuses.getVersion();
+    }
+
+    public List<Vehicle> getVehicles() {
+        return vehicles;
+    }
+
+    public Vehicle.VehicleStatus getStatus(int vehicleIndex) {
+        return statuses.get(vehicleIndex);
+    }
+
+    public int countByStatus(Vehicle.VehicleStatus status) {
+        return statuses.count(status);
+    }
+
+    public List<Customer> getCustomers() {
+        return customers;
+    }
+
+    public List<RentalRecord> getRentalHistory() {
+        return rentalHistory;
+    }
+}
@@ -1,28 +1,175 @@
 import java.util.List;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.IdentityHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.io.*;
-import java.time.format.DateTimeParseException;
 
 public class RentalSystem {
+	private static final int HOT_MONTHS = 3;
+	private static final int COLD_SEGMENT_CACHE = 6;
+	private static final int DEDUP_WINDOW_SIZE = 10_000;
+	private static final String MAINTENANCE_FILE = "maintenance.txt";
+	private static final long DEDUP_WINDOW_MILLIS = 10 * 60 * 1000;
 	private static RentalSystem instance;
-    private List<Vehicle> vehicles = new ArrayList<>();
-    private List<Customer> customers = new ArrayList<>();
+    private final SnapshotList<Vehicle> vehicles = new SnapshotList<>();
+    private final SnapshotList<Customer> customers = new SnapshotList<>();
+    private final Map<Vehicle, Integer> vehicleIndexes = new IdentityHashMap<>();
+    private volatile VehicleStatusTable statusTable = VehicleStatusTable.EMPTY;
+    private Map<String, Vehicle> vehiclesByPlate = new ConcurrentHashMap<>();
+    private Map<Integer, Customer> customersById = new ConcurrentHashMap<>();
     private RentalHistory rentalHistory = new RentalHistory();
+    private final File dataDir;
+    private final Function<Integer, Customer> customerDirectory;
+    private final RentalRecordStore recordStore;
+    private final RentalEventBus eventBus = new RentalEventBus();
+    private TransactionLog transactionLog;
+    private volatile PrintStream console = System.out;
+    private final PricingEngine pricingEngine = new PricingEngine();
+    private final OverdueScheduler overdueScheduler = new OverdueScheduler();
+    private final MaintenancePlanner maintenancePlanner = new MaintenancePlanner();
+    private ScheduledExecutorService overdueTimer;
+    private final QueryCache<String, Boolean> completedRequests = new QueryCache<>(DEDUP_WINDOW_SIZE, DEDUP_WINDOW_MILLIS);
+    private QueryCache<Vehicle.VehicleStatus, List<Vehicle>> statusQueries = new QueryCache<>(
+            Vehicle.VehicleStatus.values().length, 60_000);
     public List<Vehicle> getVehicles() {
-        return vehicles;
+        return vehicles.snapshot();
     }
 
     public List<Customer> getCustomers() {
-        return customers;
+        return customers.snapshot();
+    }
+
+    public RentalSnapshot snapshot() {
+        VehicleStatusTable table = statusTable;
+        return new RentalSnapshot(vehicles.snapshot().subList(0, table.size()), table, customers.snapshot(),
+                rentalHistory.getRentalHistory().subList(0, (int) table.getHistorySize()));
+    }
+
+    private void publishStatus(Vehicle vehicle) {
+        Integer index = vehicleIndexes.get(vehicle);
+        statusTable = index == null ? statusTable.withHistorySize(rentalHistory.size())
+                : statusTable.with(index, vehicle.getStatus(), rentalHistory.size());
     }
 
     public RentalHistory getRentalHistory() {
         return rentalHistory;
     }
 
+    public RentalEventBus getEventBus() {
+        return eventBus;
+    }
+
+    public PrintStream getConsole() {
+        return console;
+    }
+
+    public void setConsole(PrintStream console) {
+        this.console = console;
+    }
+
+    public synchronized void setTransactionLog(TransactionLog transactionLog) {
+        this.transactionLog = transactionLog;
+    }
+
+    private void publish(RentalEvent.Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                         Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus, LocalDate date) {
+        if (transactionLog != null) {
+            String entry = TransactionLog.encode(type, vehicle, customer, record, previousStatus, newStatus, date);
+            if (entry != null) {
+                transactionLog.append(entry);
+            }
+        }
+        eventBus.publish(type, vehicle, customer, record, previousStatus, newStatus, date);
+    }
+
+    public PricingEngine getPricingEngine() {
+        return pricingEngine;
+    }
+
+    public RentalAggregates getAggregates() {
+        return rentalHistory.getAggregates();
+    }
+
+    public List<Vehicle> getAvailableVehicles() {
+        return getVehiclesByStatus(Vehicle.VehicleStatus.AVAILABLE);
+    }
+
+    public List<Vehicle> getVehiclesByStatus(Vehicle.VehicleStatus status) {
+        return statusQueries.get(status, this::findVehiclesByStatus);
+    }
+
+    public QueryCache<Vehicle.VehicleStatus, List<Vehicle>> getStatusQueryCache() {
+        return statusQueries;
+    }
+
+    private List<Vehicle> findVehiclesByStatus(Vehicle.VehicleStatus status) {
+        List<Vehicle> result = new ArrayList<>();
+        for (Vehicle v : vehicles.snapshot()) {
+            if (v.getStatus() == status) {
+                result.add(v);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
     private RentalSystem() {
-    	 loadData();
+    	 this(new File("."));
+    }
+
+    private RentalSystem(File dataDir) {
+        this(dataDir, false);
+    }
+
+    private RentalSystem(File dataDir, boolean offHeapColdTier) {
+        this(dataDir, offHeapColdTier, readCustomers(dataDir), null);
+    }
+
+    private RentalSystem(File dataDir, boolean offHeapColdTier, List<Customer> storedCustomers,
+                         Function<Integer, Customer> customerDirectory) {
+        this.dataDir = dataDir;
+        this.customerDirectory = customerDirectory;
+        this.recordStore = new RentalRecordStore(dataDir, HOT_MONTHS, COLD_SEGMENT_CACHE,
+                this::findVehicleByPlate, this::resolveCustomer, this::findCustomerByName);
+        recordStore.setOffHeapColdTier(offHeapColdTier);
+        rentalHistory.setRecordStore(recordStore);
+        loadData(storedCustomers);
+    }
+
+    public static RentalSystem forDirectory(File dataDir) {
+        return forDirectory(dataDir, false);
+    }
+
+    public static RentalSystem forDirectory(File dataDir, boolean offHeapColdTier) {
+        createDirectory(dataDir);
+        return new RentalSystem(dataDir, offHeapColdTier);
+    }
+
+    public static RentalSystem forShard(File dataDir, List<Customer> storedCustomers,
+                                        Function<Integer, Customer> customerDirectory) {
+        createDirectory(dataDir);
+        return new RentalSystem(dataDir, false, storedCustomers, customerDirectory);
+    }
+
+    private static void createDirectory(File dataDir) {
+        if (!dataDir.isDirectory() && !dataDir.mkdirs()) {
+            throw new IllegalArgumentException("Cannot create data directory: " + dataDir.getPath());
+        }
+    }
+
+    public RentalRecordStore getRecordStore() {
+        return recordStore;
+    }
+
+    public File getDataDir() {
+        return dataDir;
     }
     
     public static RentalSystem getInstance() {
@@ -32,60 +179,32 @@ public class RentalSystem {
         return instance;
     }
 
-    private void loadData() {
+    private void loadData(List<Customer> storedCustomers) {
         loadVehicles();
-        loadCustomers();
+        loadCustomers(storedCustomers);
+        loadMaintenance();
         loadRentalRecords();
+        List<Vehicle> loaded = vehicles.snapshot();
+        Vehicle.VehicleStatus[] statuses = new Vehicle.VehicleStatus[loaded.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = loaded.get(i).getStatus();
+        }
+        statusTable = VehicleStatusTable.EMPTY.with(0, statuses, rentalHistory.size());
     }
 
     private void loadVehicles() {
-        File file = new File("vehicles.txt");
+        File file = new File(dataDir, "vehicles.txt");
         if (!file.exists()) return;
 
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length < 6) continue;
-
-                String className = parts[0];
-                String licensePlate = "null".equals(parts[1]) ? null : parts[1];
-                String make = parts[2];
-                String model = parts[3];
-                int year = Integer.parseInt(parts[4]);
-                Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(parts[5]);
-
-                Vehicle vehicle = null;
-                switch (className) {
-                    case "Car":
-                        if (parts.length < 7) continue;
-                        vehicle = new Car(make, model, year, Integer.parseInt(parts[6]));
-                        break;
-                    case "SportCar":
-                        if (parts.length < 9) continue;
-                        vehicle = new SportCar(make, model, year,
-                                Integer.parseInt(parts[6]),
-                                Integer.parseInt(parts[7]),
-                                Boolean.parseBoolean(parts[8]));
-                        break;
-                    case "Motorcycle":
-                        if (parts.length < 7) continue;
-                        vehicle = new Motorcycle(make, model, year,
-                                Boolean.parseBoolean(parts[6]));
-                        break;
-                    case "Truck":
-                        if (parts.length < 7) continue;
-                        vehicle = new Truck(make, model, year,
-                                Double.parseDouble(parts[6]));
-                        break;
-                    default:
-                        continue;
-                }
-
+                Vehicle vehicle = parseVehicle(line);
                 if (vehicle != null) {
-                    vehicle.setLicensePlate(licensePlate);
-                    vehicle.setStatus(status);
+                    vehicleIndexes.put(vehicle, vehicles.size());
                     vehicles.add(vehicle);
+                    indexVehicle(vehicle);
+                    rentalHistory.getAggregates().vehicleAdded(vehicle.getStatus());
                 }
             }
         } catch (IOException | IllegalArgumentException e) {
@@ -93,103 +212,294 @@ public class RentalSystem {
         }
     }
 
-    private void loadCustomers() {
-        File file = new File("customers.txt");
-        if (!file.exists()) return;
+    public static Vehicle parseVehicle(String line) {
+        String[] parts = line.split(",");
+        if (parts.length < 6) return null;
+
+        String className = parts[0];
+        String licensePlate = "null".equals(parts[1]) ? null : parts[1];
+        String make = parts[2];
+        String model = parts[3];
+        int year = Integer.parseInt(parts[4]);
+        Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(parts[5]);
+
+        Vehicle vehicle;
+        switch (className) {
+            case "Car":
+                if (parts.length < 7) return null;
+                vehicle = new Car(make, model, year, Integer.parseInt(parts[6]));
+                break;
+            case "SportCar":
+                if (parts.length < 9) return null;
+                vehicle = new SportCar(make, model, year,
+                        Integer.parseInt(parts[6]),
+                        Integer.parseInt(parts[7]),
+                        Boolean.parseBoolean(parts[8]));
+                break;
+            case "Motorcycle":
+                if (parts.length < 7) return null;
+                vehicle = new Motorcycle(make, model, year,
+                        Boolean.parseBoolean(parts[6]));
+                break;
+            case "Truck":
+                if (parts.length < 7) return null;
+                vehicle = new Truck(make, model, year,
+                        Double.parseDouble(parts[6]));
+                break;
+            default:
+                return null;
+        }
+
+        vehicle.setLicensePlate(licensePlate);
+        vehicle.setStatus(status);
+        return vehicle;
+    }
+
+    public static String formatVehicle(Vehicle vehicle) {
+        String common = vehicle.getLicensePlate() + "," + vehicle.getMake() + "," + vehicle.getModel() + "," +
+                vehicle.getYear() + "," + vehicle.getStatus();
+        if (vehicle instanceof SportCar) {
+            SportCar sportCar = (SportCar) vehicle;
+            return "SportCar," + common + "," + sportCar.getNumSeats() + "," + sportCar.getHorsepower() + "," + sportCar.hasTurbo();
+        } else if (vehicle instanceof Car) {
+            return "Car," + common + "," + ((Car) vehicle).getNumSeats();
+        } else if (vehicle instanceof Motorcycle) {
+            return "Motorcycle," + common + "," + ((Motorcycle) vehicle).hasSidecar();
+        } else if (vehicle instanceof Truck) {
+            return "Truck," + common + "," + ((Truck) vehicle).getCargoCapacity();
+        }
+        return "Vehicle," + common;
+    }
+
+    private void loadCustomers(List<Customer> storedCustomers) {
+        for (Customer customer : storedCustomers) {
+            customers.add(customer);
+            customersById.put(customer.getCustomerId(), customer);
+        }
+    }
+
+    public static List<Customer> readCustomers(File dataDir) {
+        List<Customer> result = new ArrayList<>();
+        File file = new File(dataDir, "customers.txt");
+        if (!file.exists()) return result;
 
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] parts = line.split(",");
                 if (parts.length < 2) continue;
-                int id = Integer.parseInt(parts[0]);
-                customers.add(new Customer(id, parts[1]));
+                result.add(new Customer(Integer.parseInt(parts[0]), parts[1]));
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return result;
     }
 
-    private void loadRentalRecords() {
-        File file = new File("rentalrecords.txt");
+    private void loadMaintenance() {
+        File file = new File(dataDir, MAINTENANCE_FILE);
         if (!file.exists()) return;
 
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
                 String[] parts = line.split(",");
-                if (parts.length < 5) continue;
+                if (parts.length < 4) continue;
+                Vehicle vehicle = findVehicleByPlate(parts[1]);
+                if (vehicle == null) continue;
+                Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(parts[2]);
+                rentalHistory.getAggregates().statusChanged(vehicle.getStatus(), status);
+                vehicle.setStatus(status);
+                if ("DONE".equals(parts[0])) {
+                    maintenancePlanner.serviced(vehicle, LocalDate.parse(parts[3]));
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void saveMaintenance(String action, Vehicle vehicle, LocalDate date) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(dataDir, MAINTENANCE_FILE), true))) {
+            out.println(action + "," + vehicle.getLicensePlate() + "," + vehicle.getStatus() + "," + date);
+        } catch (IOException e) {
+            System.err.println("Error saving maintenance: " + e.getMessage());
+        }
+    }
 
-                String recordType = parts[0];
-                String licensePlate = parts[1];
-                int customerId = Integer.parseInt(parts[2]);
-                LocalDate date = LocalDate.parse(parts[3]);
-                double amount = Double.parseDouble(parts[4]);
+    private RentalCheckpoint loadColdRentals() {
+        recordStore.migrateLegacyFile();
+        YearMonth hotSince = recordStore.getHotSince();
+        YearMonth boundary = recordStore.getCheckpointBoundary();
+        RentalCheckpoint checkpoint = newCheckpoint();
+        if (boundary != null && (boundary.isAfter(hotSince)
+                || !checkpoint.restore(recordStore.readCheckpoint(), recordStore::parseRecord, this::findVehicleByPlate))) {
+            checkpoint = newCheckpoint();
+            boundary = null;
+        }
+        if (boundary == null && recordStore.listSegments().headSet(hotSince).isEmpty()) {
+            return checkpoint;
+        }
+        if (boundary == null || boundary.isBefore(hotSince)) {
+            recordStore.scanMonths(boundary, hotSince, checkpoint::apply);
+            recordStore.writeCheckpoint(hotSince, checkpoint.encode());
+        }
+        return checkpoint;
+    }
 
-                Vehicle vehicle = findVehicleByPlate(licensePlate);
-                Customer customer = findCustomerById(String.valueOf(customerId));
+    private RentalCheckpoint newCheckpoint() {
+        return new RentalCheckpoint(maintenancePlanner.getRentalsPerService(), maintenancePlanner::getLastServiced);
+    }
 
-                if (vehicle != null && customer != null) {
-                    rentalHistory.addRecord(new RentalRecord(vehicle, customer, date, amount, recordType));
+    private void loadRentalRecords() {
+        RentalCheckpoint cold = loadColdRentals();
+        rentalHistory.getAggregates().merge(cold.getAggregates());
+        for (Map.Entry<Vehicle, Integer> entry : cold.getRentalCounts().entrySet()) {
+            maintenancePlanner.restoreRentalCount(entry.getKey(), entry.getValue(), cold.getServiceDate(entry.getKey()));
+        }
+        Map<Vehicle, RentalRecord> openRentals = new IdentityHashMap<>(cold.getOpenRentals());
+        recordStore.loadHot(record -> {
+            rentalHistory.addRecord(record);
+            if (record.getRequestId() != null) {
+                completedRequests.put(requestKey(record.getRecordType(), record.getRequestId()), Boolean.TRUE);
+            }
+            if ("RENT".equals(record.getRecordType())) {
+                openRentals.put(record.getVehicle(), record);
+                LocalDate serviced = maintenancePlanner.getLastServiced(record.getVehicle());
+                if (serviced == null || record.getRecordDate().isAfter(serviced)) {
+                    maintenancePlanner.recordRental(record, record.getDueDate());
                 }
+            } else if ("RETURN".equals(record.getRecordType())) {
+                openRentals.remove(record.getVehicle());
+            }
+        });
+        for (RentalRecord record : openRentals.values()) {
+            Vehicle vehicle = record.getVehicle();
+            if (vehicle.getStatus() == Vehicle.VehicleStatus.AVAILABLE) {
+                vehicle.setStatus(Vehicle.VehicleStatus.RENTED);
+                rentalHistory.getAggregates().statusChanged(Vehicle.VehicleStatus.AVAILABLE, Vehicle.VehicleStatus.RENTED);
+            }
+            if (vehicle.getStatus() == Vehicle.VehicleStatus.RENTED) {
+                overdueScheduler.schedule(record, record.getDueDate());
             }
-        } catch (IOException | DateTimeParseException | NumberFormatException e) {
-            e.printStackTrace();
         }
     }
-    public boolean addVehicle(Vehicle vehicle) {
+    public synchronized boolean addVehicle(Vehicle vehicle) {
         String plate = vehicle.getLicensePlate();
         if (plate == null) {
-            for (Vehicle v : vehicles) {
+            for (Vehicle v : vehicles.snapshot()) {
                 if (v.getLicensePlate() == null) {
-                    System.out.println("Error: Duplicate null license plate.");
+                    console.println("Error: Duplicate null license plate.");
                     return false;
                 }
             }
         } else {
             Vehicle existing = findVehicleByPlate(plate);
             if (existing != null) {
-                System.out.println("Error: License plate " + plate + " already exists.");
+                console.println("Error: License plate " + plate + " already exists.");
                 return false;
             }
         }
+        vehicleIndexes.put(vehicle, vehicles.size());
         vehicles.add(vehicle);
+        indexVehicle(vehicle);
+        publishStatus(vehicle);
+        rentalHistory.getAggregates().vehicleAdded(vehicle.getStatus());
+        statusQueries.invalidate(vehicle.getStatus());
         saveVehicle(vehicle);
+        publish(RentalEvent.Type.VEHICLE_ADDED, vehicle, null, null, null, vehicle.getStatus(), null);
         return true;
     }
 
-    public boolean addCustomer(Customer customer) {
+    public synchronized boolean addCustomer(Customer customer) {
         int id = customer.getCustomerId();
         Customer existing = findCustomerById(String.valueOf(id));
         if (existing != null) {
-            System.out.println("Error: Customer ID " + id + " already exists.");
+            console.println("Error: Customer ID " + id + " already exists.");
             return false;
         }
         customers.add(customer);
+        customersById.put(id, customer);
+        statusTable = statusTable.withNextVersion();
         saveCustomer(customer);
+        publish(RentalEvent.Type.CUSTOMER_ADDED, null, customer, null, null, null, null);
         return true;
     }
+
+    public synchronized List<Vehicle> addVehicles(List<Vehicle> newVehicles) {
+        List<Vehicle> rejected = new ArrayList<>();
+        List<Vehicle> added = new ArrayList<>(newVehicles.size());
+        for (Vehicle vehicle : newVehicles) {
+            String plate = vehicle.getLicensePlate();
+            if (plate == null || vehiclesByPlate.putIfAbsent(plate, vehicle) != null) {
+                rejected.add(vehicle);
+            } else {
+                added.add(vehicle);
+            }
+        }
+        if (added.isEmpty()) return rejected;
+
+        int start = vehicles.size();
+        Vehicle.VehicleStatus[] statuses = new Vehicle.VehicleStatus[added.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            vehicleIndexes.put(added.get(i), start + i);
+            statuses[i] = added.get(i).getStatus();
+        }
+        vehicles.addAll(added);
+        statusTable = statusTable.with(start, statuses, rentalHistory.size());
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new FileWriter(new File(dataDir, "vehicles.txt"), true), 1 << 16))) {
+            for (Vehicle vehicle : added) {
+                out.println(formatVehicle(vehicle));
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving vehicles: " + e.getMessage());
+        }
+        for (Vehicle vehicle : added) {
+            rentalHistory.getAggregates().vehicleAdded(vehicle.getStatus());
+            publish(RentalEvent.Type.VEHICLE_ADDED, vehicle, null, null, null, vehicle.getStatus(), null);
+        }
+        statusQueries.invalidateAll();
+        return rejected;
+    }
+
+    public synchronized List<Customer> addCustomers(List<Customer> newCustomers) {
+        List<Customer> rejected = new ArrayList<>();
+        List<Customer> added = new ArrayList<>(newCustomers.size());
+        for (Customer customer : newCustomers) {
+            if (customersById.putIfAbsent(customer.getCustomerId(), customer) != null) {
+                rejected.add(customer);
+            } else {
+                added.add(customer);
+            }
+        }
+        if (added.isEmpty()) return rejected;
+
+        customers.addAll(added);
+        try (PrintWriter out = new PrintWriter(new BufferedWriter(
+                new FileWriter(new File(dataDir, "customers.txt"), true), 1 << 16))) {
+            for (Customer customer : added) {
+                out.printf("%d,%s%n", customer.getCustomerId(), customer.getCustomerName());
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving customers: " + e.getMessage());
+        }
+        for (Customer customer : added) {
+            publish(RentalEvent.Type.CUSTOMER_ADDED, null, customer, null, null, null, null);
+        }
+        return rejected;
+    }
+
     private void saveVehicle(Vehicle vehicle) {
-        try (PrintWriter out = new PrintWriter(new FileWriter("vehicles.txt", true))) {
-            String type = "Vehicle";
-            if (vehicle instanceof Car) type = "Car";
-            else if (vehicle instanceof Motorcycle) type = "Motorcycle";
-            else if (vehicle instanceof Truck) type = "Truck";
-            else if (vehicle instanceof SportCar) type = "SportCar";
-            
-            out.printf("%s,%s,%s,%d,%s%n", 
-                vehicle.getLicensePlate(),
-                vehicle.getMake(),
-                vehicle.getModel(),
-                vehicle.getYear(),
-                type);
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(dataDir, "vehicles.txt"), true))) {
+            out.println(formatVehicle(vehicle));
         } catch (IOException e) {
             System.err.println("Error saving vehicle: " + e.getMessage());
         }
     }
 
     private void saveCustomer(Customer customer) {
-        try (PrintWriter out = new PrintWriter(new FileWriter("customers.txt", true))) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(dataDir, "customers.txt"), true))) {
             out.printf("%d,%s%n",
                 customer.getCustomerId(),
                 customer.getCustomerName());
@@ -199,83 +509,283 @@ public class RentalSystem {
     }
 
     private void saveRecord(RentalRecord record) {
-        try (PrintWriter out = new PrintWriter(new FileWriter("rentalrecords.txt", true))) {
-            out.printf("%s,%s,%s,%.2f,%s%n",
-                record.getVehicle().getLicensePlate(),
-                record.getCustomer().getCustomerName(),
-                record.getRecordDate(),
-                record.getTotalAmount(),
-                record.getRecordType());
-        } catch (IOException e) {
-            System.err.println("Error saving record: " + e.getMessage());
+        recordStore.append(record);
+    }
+
+    public synchronized void importRecord(RentalRecord record) {
+        saveRecord(record);
+        rentalHistory.addRecord(record);
+        statusTable = statusTable.withHistorySize(rentalHistory.size());
+        if (transactionLog != null) {
+            transactionLog.append(TransactionLog.encodeHistory(record));
+        }
+        if (record.getRequestId() != null) {
+            completedRequests.put(requestKey(record.getRecordType(), record.getRequestId()), Boolean.TRUE);
         }
+        if ("RENT".equals(record.getRecordType())) {
+            maintenancePlanner.recordRental(record, record.getDueDate());
+        }
+        if ("RENT".equals(record.getRecordType()) && record.getVehicle().getStatus() == Vehicle.VehicleStatus.RENTED) {
+            overdueScheduler.schedule(record, record.getDueDate());
+        } else if ("RETURN".equals(record.getRecordType())) {
+            overdueScheduler.cancel(record.getVehicle());
+        }
+    }
+
+    private void changeStatus(Vehicle vehicle, Vehicle.VehicleStatus status) {
+        Vehicle.VehicleStatus previous = vehicle.getStatus();
+        vehicle.setStatus(status);
+        publishStatus(vehicle);
+        rentalHistory.getAggregates().statusChanged(previous, status);
+        statusQueries.invalidate(previous);
+        statusQueries.invalidate(status);
+        publish(RentalEvent.Type.STATUS_CHANGED, vehicle, null, null, previous, status, null);
     }
 
     public boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount) {
+        return rentVehicle(vehicle, customer, date, amount, null);
+    }
+
+    public boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount, String requestId) {
+        return rentVehicle(vehicle, customer, date, amount, requestId, null);
+    }
+
+    public synchronized boolean rentVehicle(Vehicle vehicle, Customer customer, LocalDate date, double amount,
+                                            String requestId, LocalDate dueDate) {
+        if (requestId == null) {
+            return executeRent(vehicle, customer, date, amount, null, dueDate);
+        }
+        checkRequestId(requestId);
+        String key = requestKey("RENT", requestId);
+        if (completedRequests.getIfPresent(key) != null) return true;
+        boolean rented = executeRent(vehicle, customer, date, amount, requestId, dueDate);
+        if (rented) {
+            completedRequests.put(key, Boolean.TRUE);
+        }
+        return rented;
+    }
+
+    public boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+        return returnVehicle(vehicle, customer, date, extraFees, null);
+    }
+
+    public synchronized boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees, String requestId) {
+        if (requestId == null) {
+            return executeReturn(vehicle, customer, date, extraFees, null);
+        }
+        checkRequestId(requestId);
+        String key = requestKey("RETURN", requestId);
+        if (completedRequests.getIfPresent(key) != null) return true;
+        boolean returned = executeReturn(vehicle, customer, date, extraFees, requestId);
+        if (returned) {
+            completedRequests.put(key, Boolean.TRUE);
+        }
+        return returned;
+    }
+
+    public double quoteRental(Vehicle vehicle, LocalDate date, int days) {
+        return pricingEngine.quoteRental(vehicle, date, days);
+    }
+
+    public synchronized double quoteReturn(Vehicle vehicle, LocalDate date) {
+        return pricingEngine.lateFee(findOpenRental(vehicle), date);
+    }
+
+    public boolean rentVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date, int days) {
+        return rentVehicleQuoted(vehicle, customer, date, days, null);
+    }
+
+    public synchronized boolean rentVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date, int days, String requestId) {
+        return rentVehicle(vehicle, customer, date, pricingEngine.quoteRental(vehicle, date, days), requestId, date.plusDays(days));
+    }
+
+    public boolean returnVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date) {
+        return returnVehicleQuoted(vehicle, customer, date, null);
+    }
+
+    public synchronized boolean returnVehicleQuoted(Vehicle vehicle, Customer customer, LocalDate date, String requestId) {
+        return returnVehicle(vehicle, customer, date, quoteReturn(vehicle, date), requestId);
+    }
+
+    private RentalRecord findOpenRental(Vehicle vehicle) {
+        if (vehicle.getStatus() != Vehicle.VehicleStatus.RENTED) return null;
+        return overdueScheduler.getRental(vehicle);
+    }
+
+    public MaintenancePlanner getMaintenancePlanner() {
+        return maintenancePlanner;
+    }
+
+    public List<Vehicle> getVehiclesDueForService(LocalDate today) {
+        return maintenancePlanner.getVehiclesDueThisWeek(today);
+    }
+
+    public synchronized boolean startMaintenance(Vehicle vehicle, Vehicle.VehicleStatus status, LocalDate date) {
+        if (status != Vehicle.VehicleStatus.MAINTENANCE && status != Vehicle.VehicleStatus.OUTOFSERVICE) {
+            throw new IllegalArgumentException("Not a maintenance status: " + status);
+        }
+        Vehicle.VehicleStatus previous = vehicle.getStatus();
+        if (previous == status || previous == Vehicle.VehicleStatus.RENTED || previous == Vehicle.VehicleStatus.RESERVED) {
+            return false;
+        }
+        changeStatus(vehicle, status);
+        saveMaintenance("START", vehicle, date);
+        publish(RentalEvent.Type.MAINTENANCE_STARTED, vehicle, null, null, previous, status, date);
+        return true;
+    }
+
+    public synchronized boolean completeMaintenance(Vehicle vehicle, LocalDate date) {
+        Vehicle.VehicleStatus previous = vehicle.getStatus();
+        if (previous != Vehicle.VehicleStatus.MAINTENANCE && previous != Vehicle.VehicleStatus.OUTOFSERVICE) {
+            return false;
+        }
+        changeStatus(vehicle, Vehicle.VehicleStatus.AVAILABLE);
+        maintenancePlanner.serviced(vehicle, date);
+        recordStore.invalidateCheckpoint(YearMonth.from(date));
+        saveMaintenance("DONE", vehicle, date);
+        publish(RentalEvent.Type.MAINTENANCE_COMPLETED, vehicle, null, null, previous, Vehicle.VehicleStatus.AVAILABLE,
+                date);
+        return true;
+    }
+
+    public OverdueScheduler getOverdueScheduler() {
+        return overdueScheduler;
+    }
+
+    public List<RentalRecord> getOverdueRentals() {
+        return overdueScheduler.getOverdueRentals();
+    }
+
+    public synchronized List<RentalRecord> checkOverdue(LocalDate today) {
+        List<RentalRecord> overdue = overdueScheduler.pollOverdue(today);
+        for (RentalRecord record : overdue) {
+            publish(RentalEvent.Type.VEHICLE_OVERDUE, record.getVehicle(), record.getCustomer(), record,
+                    null, record.getVehicle().getStatus(), null);
+        }
+        return overdue;
+    }
+
+    public synchronized void startOverdueChecks(long periodMillis) {
+        if (overdueTimer != null) return;
+        overdueTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rental-overdue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        overdueTimer.scheduleAtFixedRate(() -> checkOverdue(LocalDate.now()), 0, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkRequestId(String requestId) {
+        if (requestId.isEmpty() || requestId.indexOf(',') >= 0 || requestId.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("Invalid request ID: " + requestId);
+        }
+    }
+
+    private static String requestKey(String recordType, String requestId) {
+        return recordType + ":" + requestId;
+    }
+
+    public QueryCache<String, Boolean> getCompletedRequests() {
+        return completedRequests;
+    }
+
+    private boolean executeRent(Vehicle vehicle, Customer customer, LocalDate date, double amount, String requestId,
+                                LocalDate dueDate) {
         if (vehicle.getStatus() == Vehicle.VehicleStatus.AVAILABLE) {
-            vehicle.setStatus(Vehicle.VehicleStatus.RENTED);
-            RentalRecord record = new RentalRecord(vehicle, customer, date, amount, "RENT");
-            rentalHistory.addRecord(record);
+            RentalRecord record = new RentalRecord(vehicle, customer, date, amount, "RENT", requestId, dueDate);
             saveRecord(record);
-            System.out.println("Vehicle rented to " + customer.getCustomerName());
+            rentalHistory.addRecord(record);
+            changeStatus(vehicle, Vehicle.VehicleStatus.RENTED);
+            overdueScheduler.schedule(record, dueDate);
+            maintenancePlanner.recordRental(record, dueDate);
+            publish(RentalEvent.Type.VEHICLE_RENTED, vehicle, customer, record, null, vehicle.getStatus(), null);
+            console.println("Vehicle rented to " + customer.getCustomerName());
             return true;
         } else {
-            System.out.println("Vehicle is not available.");
+            console.println("Vehicle is not available.");
             return false;
         }
     }
 
-    public boolean returnVehicle(Vehicle vehicle, Customer customer, LocalDate date, double extraFees) {
+    private boolean executeReturn(Vehicle vehicle, Customer customer, LocalDate date, double extraFees, String requestId) {
         if (vehicle.getStatus() == Vehicle.VehicleStatus.RENTED) {
-            vehicle.setStatus(Vehicle.VehicleStatus.AVAILABLE);
-            RentalRecord record = new RentalRecord(vehicle, customer, date, extraFees, "RETURN");
-            rentalHistory.addRecord(record);
+            boolean service = maintenancePlanner.isServiceScheduled(vehicle);
+            RentalRecord record = new RentalRecord(vehicle, customer, date, extraFees, "RETURN", requestId);
             saveRecord(record);
-            System.out.println("Vehicle returned by " + customer.getCustomerName());
+            rentalHistory.addRecord(record);
+            changeStatus(vehicle, service ? Vehicle.VehicleStatus.MAINTENANCE : Vehicle.VehicleStatus.AVAILABLE);
+            overdueScheduler.cancel(vehicle);
+            publish(RentalEvent.Type.VEHICLE_RETURNED, vehicle, customer, record, null, vehicle.getStatus(), null);
+            if (service) {
+                saveMaintenance("START", vehicle, date);
+                publish(RentalEvent.Type.MAINTENANCE_STARTED, vehicle, null, null,
+                        Vehicle.VehicleStatus.RENTED, vehicle.getStatus(), date);
+            }
+            console.println("Vehicle returned by " + customer.getCustomerName());
             return true;
         } else {
-            System.out.println("Vehicle is not rented.");
+            console.println("Vehicle is not rented.");
             return false;
         }
     }
     
     public void displayVehicles(boolean onlyAvailable) {
-    	System.out.println("|     Type         |\tPlate\t|\tMake\t|\tModel\t|\tYear\t|");
-    	System.out.println("---------------------------------------------------------------------------------");
+    	console.println("|     Type         |\tPlate\t|\tMake\t|\tModel\t|\tYear\t|");
+    	console.println("---------------------------------------------------------------------------------");
     	 
-        for (Vehicle v : vehicles) {
-            if (!onlyAvailable || v.getStatus() == Vehicle.VehicleStatus.AVAILABLE) {
-                System.out.println("|     " + (v instanceof Car ? "Car          " : "Motorcycle   ") + "|\t" + v.getLicensePlate() + "\t|\t" + v.getMake() + "\t|\t" + v.getModel() + "\t|\t" + v.getYear() + "\t|\t");
-            }
+        for (Vehicle v : onlyAvailable ? getAvailableVehicles() : getVehicles()) {
+            console.println("|     " + (v instanceof Car ? "Car          " : "Motorcycle   ") + "|\t" + v.getLicensePlate() + "\t|\t" + v.getMake() + "\t|\t" + v.getModel() + "\t|\t" + v.getYear() + "\t|\t");
         }
-        System.out.println();
+        console.println();
     }
     
     public void displayAllCustomers() {
-        for (Customer c : customers) {
-            System.out.println("  " + c.toString());
+        for (Customer c : customers.snapshot()) {
+            console.println("  " + c.toString());
         }
     }
     
     public void displayRentalHistory() {
-        for (RentalRecord record : rentalHistory.getRentalHistory()) {
-            System.out.println(record.toString());
+        rentalHistory.scan(LocalDate.MIN, LocalDate.MAX, record -> console.println(record.toString()));
+    }
+
+    public long displayRentalHistory(long cursor, int pageSize) {
+        HistoryPage page = rentalHistory.getPage(cursor, pageSize, true);
+        for (RentalRecord record : page.getRecords()) {
+            console.println(record.toString());
         }
+        return page.hasMore() ? page.getNextCursor() : 0;
     }
     
     public Vehicle findVehicleByPlate(String plate) {
-        for (Vehicle v : vehicles) {
-            if (v.getLicensePlate().equalsIgnoreCase(plate)) {
-                return v;
-            }
-        }
-        return null;
+        if (plate == null) return null;
+        return vehiclesByPlate.get(plate.toUpperCase());
     }
     
     public Customer findCustomerById(String id) {
-        for (Customer c : customers)
-            if (c.getCustomerId() == Integer.parseInt(id))
+        return customersById.get(Integer.parseInt(id));
+    }
+
+    private Customer resolveCustomer(int id) {
+        Customer customer = customersById.get(id);
+        if (customer == null && customerDirectory != null) {
+            customer = customerDirectory.apply(id);
+        }
+        return customer;
+    }
+
+    private Customer findCustomerByName(String name) {
+        for (Customer c : customers.snapshot()) {
+            if (c.getCustomerName().equals(name)) {
                 return c;
+            }
+        }
         return null;
     }
+
+    private void indexVehicle(Vehicle vehicle) {
+        if (vehicle.getLicensePlate() != null) {
+            vehiclesByPlate.put(vehicle.getLicensePlate(), vehicle);
+        }
+    }
 }
\ No newline at end of file
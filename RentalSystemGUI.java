@@ -1,26 +1,69 @@
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 
 public class RentalSystemGUI extends Application {
-    private RentalSystem rentalSystem = RentalSystem.getInstance();
+    private RentalService service = new RentalService();
     private ObservableList<Vehicle> vehicles = FXCollections.observableArrayList();
     private ObservableList<Customer> customers = FXCollections.observableArrayList();
     private ObservableList<RentalRecord> rentalHistory = FXCollections.observableArrayList();
+    private Map<Vehicle, Integer> vehicleRows = new IdentityHashMap<>();
+    private long olderCursor;
+    private boolean hasOlder;
+    private long historyTotal;
+    private Label historyStatus = new Label();
+    private RentalEventBus.Subscription subscription;
+    private long lastEventSequence;
+
+    private static final int HISTORY_PAGE_SIZE = 500;
 
     @Override
     public void start(Stage primaryStage) {
+        ProgressIndicator progress = new ProgressIndicator();
+        VBox loadingBox = new VBox(10, progress, new Label("Loading rental data..."));
+        loadingBox.setAlignment(Pos.CENTER);
+
+        primaryStage.setTitle("Vehicle Rental System");
+        primaryStage.setScene(new Scene(loadingBox, 800, 600));
+        primaryStage.show();
+
+        whenDone(service.start(), rs -> {
+            primaryStage.setScene(new Scene(createTabPane(), 800, 600));
+            whenDone(service.subscribe("gui", 1_000, event -> Platform.runLater(() -> applyEvent(event))),
+                    sub -> subscription = sub);
+            loadInitialData();
+        });
+    }
+
+    @Override
+    public void stop() {
+        if (subscription != null) {
+            subscription.close();
+        }
+        service.shutdown();
+    }
+
+    private TabPane createTabPane() {
         TabPane tabPane = new TabPane();
 
 
@@ -31,13 +74,7 @@ public class RentalSystemGUI extends Application {
         Tab viewHistoryTab = createViewHistoryTab();
 
         tabPane.getTabs().addAll(addVehicleTab, addCustomerTab, rentReturnTab, viewVehiclesTab, viewHistoryTab);
-
-        Scene scene = new Scene(tabPane, 800, 600);
-        primaryStage.setTitle("Vehicle Rental System");
-        primaryStage.setScene(scene);
-        primaryStage.show();
-
-        refreshData();
+        return tabPane;
     }
 
     private Tab createAddVehicleTab() {
@@ -119,10 +156,14 @@ public class RentalSystemGUI extends Application {
                 }
                 if (vehicle != null) {
                     vehicle.setLicensePlate(licensePlate);
-                    if (rentalSystem.addVehicle(vehicle)) {
-                        showAlert("Success", "Vehicle added successfully.");
-                        refreshData();
-                    }
+                    Vehicle added = vehicle;
+                    whenDone(service.addVehicle(added), ok -> {
+                        if (ok) {
+                            showAlert("Success", "Vehicle added successfully.");
+                        } else {
+                            showAlert("Error", "Vehicle not added (duplicate plate).");
+                        }
+                    });
                 }
             } catch (Exception ex) {
                 showAlert("Error", "Invalid input: " + ex.getMessage());
@@ -165,10 +206,13 @@ public class RentalSystemGUI extends Application {
                 int id = Integer.parseInt(idField.getText());
                 String name = nameField.getText();
                 Customer customer = new Customer(id, name);
-                if (rentalSystem.addCustomer(customer)) {
-                    showAlert("Success", "Customer added successfully.");
-                    refreshData();
-                }
+                whenDone(service.addCustomer(customer), ok -> {
+                    if (ok) {
+                        showAlert("Success", "Customer added successfully.");
+                    } else {
+                        showAlert("Error", "Customer not added (duplicate ID).");
+                    }
+                });
             } catch (NumberFormatException ex) {
                 showAlert("Error", "Invalid ID: must be a number.");
             }
@@ -197,20 +241,41 @@ public class RentalSystemGUI extends Application {
         vehicleCombo.setPromptText("Select Vehicle");
         vehicleCombo.setItems(vehicles.filtered(v -> v.getStatus() == Vehicle.VehicleStatus.AVAILABLE));
 
-        TextField amountField = new TextField();
-        amountField.setPromptText("Amount");
+        TextField daysField = new TextField();
+        daysField.setPromptText("Days");
+        Label quoteLabel = new Label();
+        Runnable updateQuote = () -> {
+            Vehicle vehicle = vehicleCombo.getValue();
+            if (vehicle == null) {
+                quoteLabel.setText("");
+                return;
+            }
+            try {
+                int days = Integer.parseInt(daysField.getText().trim());
+                whenDone(service.quoteRental(vehicle, LocalDate.now(), days),
+                        amount -> quoteLabel.setText(String.format("Quote: $%.2f", amount)));
+            } catch (IllegalArgumentException ex) {
+                quoteLabel.setText("");
+            }
+        };
+        vehicleCombo.setOnAction(e -> updateQuote.run());
+        daysField.textProperty().addListener((obs, oldText, newText) -> updateQuote.run());
 
         Button rentBtn = new Button("Rent");
         rentBtn.setOnAction(e -> {
             Customer customer = customerCombo.getValue();
             Vehicle vehicle = vehicleCombo.getValue();
             try {
-                double amount = Double.parseDouble(amountField.getText());
-                rentalSystem.rentVehicle(vehicle, customer, LocalDate.now(), amount);
-                showAlert("Success", "Vehicle rented successfully.");
-                refreshData();
+                int days = Integer.parseInt(daysField.getText().trim());
+                whenDone(service.rentVehicleQuoted(vehicle, customer, LocalDate.now(), days), ok -> {
+                    if (ok) {
+                        showAlert("Success", "Vehicle rented successfully.");
+                    } else {
+                        showAlert("Error", "Vehicle is not available.");
+                    }
+                });
             } catch (NumberFormatException ex) {
-                showAlert("Error", "Invalid amount.");
+                showAlert("Error", "Invalid number of days.");
             }
         });
 
@@ -218,21 +283,21 @@ public class RentalSystemGUI extends Application {
         returnBtn.setOnAction(e -> {
             Customer customer = customerCombo.getValue();
             Vehicle vehicle = vehicleCombo.getValue();
-            try {
-                double fees = Double.parseDouble(amountField.getText());
-                rentalSystem.returnVehicle(vehicle, customer, LocalDate.now(), fees);
-                showAlert("Success", "Vehicle returned successfully.");
-                refreshData();
-            } catch (NumberFormatException ex) {
-                showAlert("Error", "Invalid fees.");
-            }
+            whenDone(service.quoteReturn(vehicle, LocalDate.now()), fees ->
+                    whenDone(service.returnVehicleQuoted(vehicle, customer, LocalDate.now()), ok -> {
+                        if (ok) {
+                            showAlert("Success", String.format("Vehicle returned successfully. Late fees: $%.2f", fees));
+                        } else {
+                            showAlert("Error", "Vehicle is not rented.");
+                        }
+                    }));
         });
 
         HBox buttonBox = new HBox(10, rentBtn, returnBtn);
         vbox.getChildren().addAll(
                 new Label("Customer:"), customerCombo,
                 new Label("Vehicle:"), vehicleCombo,
-                new Label("Amount/Fees:"), amountField,
+                new Label("Days:"), daysField, quoteLabel,
                 buttonBox
         );
 
@@ -248,24 +313,24 @@ public class RentalSystemGUI extends Application {
         TableColumn<Vehicle, String> typeCol = new TableColumn<>("Type");
         typeCol.setCellValueFactory(cell -> {
             Vehicle v = cell.getValue();
-            String type = v instanceof Car ? "Car" : v instanceof Motorcycle ? "Motorcycle" : v instanceof Truck ? "Truck" : "SportCar";
-            return javafx.beans.binding.Bindings.createObjectBinding(() -> type);
+            String type = v instanceof SportCar ? "SportCar" : v instanceof Car ? "Car" : v instanceof Motorcycle ? "Motorcycle" : "Truck";
+            return new SimpleStringProperty(type);
         });
 
         TableColumn<Vehicle, String> plateCol = new TableColumn<>("License Plate");
-        plateCol.setCellValueFactory(new PropertyValueFactory<>("licensePlate"));
+        plateCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getLicensePlate()));
 
         TableColumn<Vehicle, String> makeCol = new TableColumn<>("Make");
-        makeCol.setCellValueFactory(new PropertyValueFactory<>("make"));
+        makeCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getMake()));
 
         TableColumn<Vehicle, String> modelCol = new TableColumn<>("Model");
-        modelCol.setCellValueFactory(new PropertyValueFactory<>("model"));
+        modelCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getModel()));
 
         TableColumn<Vehicle, Integer> yearCol = new TableColumn<>("Year");
-        yearCol.setCellValueFactory(new PropertyValueFactory<>("year"));
+        yearCol.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getYear()));
 
         TableColumn<Vehicle, String> statusCol = new TableColumn<>("Status");
-        statusCol.setCellValueFactory(new PropertyValueFactory<>("status"));
+        statusCol.setCellValueFactory(cell -> new SimpleStringProperty(String.valueOf(cell.getValue().getStatus())));
 
         table.getColumns().addAll(typeCol, plateCol, makeCol, modelCol, yearCol, statusCol);
         VBox.setVgrow(table, Priority.ALWAYS);
@@ -281,7 +346,7 @@ public class RentalSystemGUI extends Application {
         table.setItems(rentalHistory);
 
         TableColumn<RentalRecord, String> typeCol = new TableColumn<>("Type");
-        typeCol.setCellValueFactory(new PropertyValueFactory<>("recordType"));
+        typeCol.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getRecordType()));
 
         TableColumn<RentalRecord, String> plateCol = new TableColumn<>("Plate");
         plateCol.setCellValueFactory(cell -> 
@@ -294,23 +359,113 @@ public class RentalSystemGUI extends Application {
         );
 
         TableColumn<RentalRecord, LocalDate> dateCol = new TableColumn<>("Date");
-        dateCol.setCellValueFactory(new PropertyValueFactory<>("recordDate"));
+        dateCol.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getRecordDate()));
 
         TableColumn<RentalRecord, Double> amountCol = new TableColumn<>("Amount");
-        amountCol.setCellValueFactory(new PropertyValueFactory<>("totalAmount"));
+        amountCol.setCellValueFactory(cell -> new SimpleObjectProperty<>(cell.getValue().getTotalAmount()));
 
         table.getColumns().addAll(typeCol, plateCol, customerCol, dateCol, amountCol);
+
+        Button olderBtn = new Button("Load Older");
+        olderBtn.setOnAction(e -> loadOlderHistory());
+        HBox pagingBox = new HBox(10, olderBtn, historyStatus);
+
         VBox.setVgrow(table, Priority.ALWAYS);
-        VBox vbox = new VBox(table);
+        VBox vbox = new VBox(10, pagingBox, table);
         vbox.setPadding(new Insets(10));
         tab.setContent(vbox);
         return tab;
     }
 
-    private void refreshData() {
-        vehicles.setAll(rentalSystem.getVehicles());
-        customers.setAll(rentalSystem.getCustomers());
-        rentalHistory.setAll(rentalSystem.getRentalHistory().getRentalHistory());
+    private void loadInitialData() {
+        whenDone(service.getVehicles(), list -> {
+            for (int i = 0; i < list.size(); i++) {
+                vehicleRows.put(list.get(i), i);
+            }
+            vehicles.setAll(list);
+        });
+        whenDone(service.getCustomers(), customers::setAll);
+        whenDone(service.getHistoryPage(0, HISTORY_PAGE_SIZE, true), this::showOlderPage);
+    }
+
+    private void applyEvent(RentalEvent event) {
+        long expected = lastEventSequence + 1;
+        lastEventSequence = event.getSequence();
+        if (expected > 1 && event.getSequence() != expected) {
+            // the subscription dropped events while the UI was busy: reload instead of patching a stale view
+            resync();
+            return;
+        }
+        switch (event.getType()) {
+            case VEHICLE_ADDED:
+                if (vehicleRows.containsKey(event.getVehicle())) break;
+                vehicleRows.put(event.getVehicle(), vehicles.size());
+                vehicles.add(event.getVehicle());
+                break;
+            case CUSTOMER_ADDED:
+                customers.add(event.getCustomer());
+                break;
+            case STATUS_CHANGED:
+                Integer row = vehicleRows.get(event.getVehicle());
+                if (row != null) {
+                    vehicles.set(row, event.getVehicle());
+                }
+                break;
+            case VEHICLE_RENTED:
+            case VEHICLE_RETURNED:
+                rentalHistory.add(event.getRecord());
+                historyTotal++;
+                updateHistoryStatus();
+                break;
+        }
+    }
+
+    private void resync() {
+        vehicleRows.clear();
+        rentalHistory.clear();
+        olderCursor = 0;
+        hasOlder = false;
+        historyTotal = 0;
+        loadInitialData();
+    }
+
+    private void loadOlderHistory() {
+        if (!hasOlder) return;
+        long cursor = olderCursor;
+        whenDone(service.getHistoryPage(cursor, HISTORY_PAGE_SIZE, true), page -> {
+            if (olderCursor != cursor) return;
+            showOlderPage(page);
+        });
+    }
+
+    private void showOlderPage(HistoryPage page) {
+        long oldestShown = rentalHistory.isEmpty() ? Long.MAX_VALUE : rentalHistory.get(0).getSequence();
+        List<RentalRecord> older = new ArrayList<>();
+        for (RentalRecord record : page.getRecords()) {
+            if (record.getSequence() < oldestShown) {
+                older.add(record);
+            }
+        }
+        Collections.reverse(older);
+        rentalHistory.addAll(0, older);
+        olderCursor = page.getNextCursor();
+        hasOlder = page.hasMore();
+        historyTotal = Math.max(historyTotal, page.getHistorySize());
+        updateHistoryStatus();
+    }
+
+    private <T> void whenDone(CompletableFuture<T> future, Consumer<T> action) {
+        future.whenComplete((result, ex) -> Platform.runLater(() -> {
+            if (ex != null) {
+                showAlert("Error", ex.getMessage());
+            } else {
+                action.accept(result);
+            }
+        }));
+    }
+
+    private void updateHistoryStatus() {
+        historyStatus.setText("Showing " + rentalHistory.size() + " of " + historyTotal + " records");
     }
 
     private void showAlert(String title, String message) {
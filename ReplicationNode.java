@@ -0,0 +1,46 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+public class ReplicationNode {
+    private static final String LOG_FILE = "transactions.log";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length >= 2 && "primary".equals(args[0])) {
+            runPrimary(Integer.parseInt(args[1]));
+        } else if (args.length >= 4 && "standby".equals(args[0])) {
+            runStandby(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        } else {
+            System.out.println("Usage: java ReplicationNode primary <port>");
+            System.out.println("       java ReplicationNode standby <primaryHost> <primaryPort> <listenPort>");
+        }
+    }
+
+    private static void runPrimary(int port) throws IOException {
+        runPrimaryOn(RentalSystem.getInstance(), new TransactionLog(new File(LOG_FILE)), port);
+    }
+
+    private static void runStandby(String host, int primaryPort, int listenPort) throws IOException, InterruptedException {
+        RentalSystem rentalSystem = RentalSystem.getInstance();
+        TransactionLog log = new TransactionLog(new File(LOG_FILE));
+        ReplicationStandby standby = new ReplicationStandby(rentalSystem, log, host, primaryPort);
+        standby.start();
+
+        System.out.println("Standby running. Type 'promote' to take over as primary.");
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in));
+        String line;
+        while ((line = console.readLine()) != null) {
+            if ("promote".equalsIgnoreCase(line.trim())) break;
+            System.out.println("Applied sequence: " + standby.getAppliedSequence());
+        }
+
+        standby.promote();
+        runPrimaryOn(rentalSystem, log, listenPort);
+    }
+
+    private static void runPrimaryOn(RentalSystem rentalSystem, TransactionLog log, int port) throws IOException {
+        new ReplicationPrimary(rentalSystem, log, port).start();
+        VehicleRentalApp.main(new String[0]);
+    }
+}
@@ -0,0 +1,97 @@
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+public class ReplicationPrimary implements Closeable {
+    private static final long TAIL_WAIT_MILLIS = 500;
+
+    private final RentalSystem rentalSystem;
+    private final TransactionLog log;
+    private final int port;
+    private ServerSocket server;
+    private volatile boolean closed;
+
+    public ReplicationPrimary(RentalSystem rentalSystem, TransactionLog log, int port) {
+        this.rentalSystem = rentalSystem;
+        this.log = log;
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        synchronized (rentalSystem) {
+            if (log.getLastSequence() == 0) {
+                seed();
+            }
+            rentalSystem.setTransactionLog(log);
+        }
+
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("Replication primary listening on port " + port + " at sequence " + log.getLastSequence());
+    }
+
+    private void seed() {
+        for (Vehicle vehicle : rentalSystem.getVehicles()) {
+            log.append("V," + RentalSystem.formatVehicle(vehicle));
+        }
+        for (Customer customer : rentalSystem.getCustomers()) {
+            log.append("C," + customer.getCustomerId() + "," + customer.getCustomerName());
+        }
+        rentalSystem.getRentalHistory().scan(LocalDate.MIN, LocalDate.MAX,
+                record -> log.append(TransactionLog.encodeHistory(record)));
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = server.accept();
+                Thread shipper = new Thread(() -> ship(socket), "replication-shipper-" + socket.getPort());
+                shipper.setDaemon(true);
+                shipper.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Replication accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void ship(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8)));
+             TransactionLog.Cursor cursor = log.cursor()) {
+            String hello = in.readLine();
+            if (hello == null || !hello.startsWith("FROM ")) return;
+            long after = Long.parseLong(hello.substring(5).trim());
+            System.out.println("Standby " + s.getRemoteSocketAddress() + " connected from sequence " + after);
+
+            while (!closed) {
+                for (String line : cursor.next(TAIL_WAIT_MILLIS)) {
+                    if (TransactionLog.sequenceOf(line) > after) {
+                        out.print(line);
+                        out.print('\n');
+                    }
+                }
+                if (out.checkError()) break;
+            }
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Replication stream ended: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println("Standby disconnected.");
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        rentalSystem.setTransactionLog(null);
+        if (server != null) server.close();
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class ReplicationStandby implements Closeable {
+    private static final long RETRY_MILLIS = 1_000;
+
+    private final RentalSystem rentalSystem;
+    private final TransactionLog log;
+    private final String host;
+    private final int port;
+    private Thread worker;
+    private volatile Socket socket;
+    private volatile boolean promoted;
+
+    public ReplicationStandby(RentalSystem rentalSystem, TransactionLog log, String host, int port) {
+        this.rentalSystem = rentalSystem;
+        this.log = log;
+        this.host = host;
+        this.port = port;
+    }
+
+    public void start() {
+        worker = new Thread(this::run, "replication-standby");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        while (!promoted) {
+            try (Socket s = new Socket(host, port);
+                 BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                 PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), true)) {
+                socket = s;
+                out.println("FROM " + log.getLastSequence());
+                System.out.println("Connected to primary " + host + ":" + port + " from sequence " + log.getLastSequence());
+
+                String line;
+                while (!promoted && (line = in.readLine()) != null) {
+                    if (!applyLine(line)) break;
+                }
+            } catch (IOException e) {
+                if (!promoted) {
+                    System.err.println("Primary unavailable: " + e.getMessage());
+                }
+            }
+
+            if (!promoted) {
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean applyLine(String line) {
+        long sequence = TransactionLog.sequenceOf(line);
+        if (sequence <= log.getLastSequence()) return true;
+
+        String entry = TransactionLog.entryOf(line);
+        try {
+            if (!TransactionLog.apply(rentalSystem, entry)) {
+                System.err.println("Replicated entry #" + sequence + " was not applied, resyncing: " + entry);
+                return false;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Replicated entry #" + sequence + " failed, resyncing: " + e.getMessage());
+            return false;
+        }
+        log.appendReplicated(sequence, entry);
+        return true;
+    }
+
+    public long getAppliedSequence() {
+        return log.getLastSequence();
+    }
+
+    public void promote() throws InterruptedException {
+        promoted = true;
+        Socket s = socket;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // already closed
+            }
+        }
+        if (worker != null) {
+            worker.join();
+        }
+        System.out.println("Promoted at sequence " + log.getLastSequence());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            promote();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+public class SnapshotList<T> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile Object[] elements = new Object[INITIAL_CAPACITY];
+    private volatile int size;
+
+    public synchronized void add(T element) {
+        ensureCapacity(size + 1);
+        elements[size] = element;
+        size = size + 1;
+    }
+
+    public synchronized void addAll(Collection<? extends T> newElements) {
+        ensureCapacity(size + newElements.size());
+        Object[] target = elements;
+        int count = size;
+        for (T element : newElements) {
+            target[count++] = element;
+        }
+        size = count;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(needed, elements.length * 2));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<T> snapshot() {
+        int count = size;
+        return new View<>(elements, count);
+    }
+
+    private static class View<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[] elements;
+        private final int size;
+
+        View(Object[] elements, int size) {
+            this.elements = elements;
+            this.size = size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionLog implements Closeable {
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final File file;
+    private final PrintWriter out;
+    private long lastSequence;
+    private long committedLength;
+
+    public TransactionLog(File file) throws IOException {
+        this.file = file;
+        if (file.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    long sequence = sequenceOf(line);
+                    if (sequence > lastSequence) lastSequence = sequence;
+                }
+            }
+        }
+        this.out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file, true), StandardCharsets.UTF_8)));
+        this.committedLength = file.length();
+    }
+
+    public synchronized long append(String entry) {
+        long sequence = lastSequence + 1;
+        write(sequence, entry);
+        return sequence;
+    }
+
+    public synchronized boolean appendReplicated(long sequence, String entry) {
+        if (sequence <= lastSequence) return false;
+        write(sequence, entry);
+        return true;
+    }
+
+    private void write(long sequence, String entry) {
+        out.print(sequence);
+        out.print(',');
+        out.print(entry);
+        out.print('\n');
+        out.flush();
+        lastSequence = sequence;
+        committedLength = file.length();
+        notifyAll();
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    private synchronized long awaitLength(long position, long timeoutMillis) throws InterruptedException {
+        if (committedLength <= position && timeoutMillis > 0) {
+            wait(timeoutMillis);
+        }
+        return committedLength;
+    }
+
+    public Cursor cursor() throws IOException {
+        return new Cursor();
+    }
+
+    @Override
+    public synchronized void close() {
+        out.close();
+    }
+
+    public static long sequenceOf(String line) {
+        int comma = line.indexOf(',');
+        if (comma <= 0) return -1;
+        try {
+            return Long.parseLong(line.substring(0, comma));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String entryOf(String line) {
+        return line.substring(line.indexOf(',') + 1);
+    }
+
+    public static String encode(RentalEvent event) {
+        return encode(event.getType(), event.getVehicle(), event.getCustomer(), event.getRecord(),
+                event.getPreviousStatus(), event.getNewStatus(), event.getDate());
+    }
+
+    public static String encode(RentalEvent.Type type, Vehicle vehicle, Customer customer, RentalRecord record,
+                                Vehicle.VehicleStatus previousStatus, Vehicle.VehicleStatus newStatus, LocalDate date) {
+        switch (type) {
+            case VEHICLE_ADDED:
+                return "V," + RentalSystem.formatVehicle(vehicle);
+            case CUSTOMER_ADDED:
+                return "C," + customer.getCustomerId() + "," + customer.getCustomerName();
+            case VEHICLE_RENTED:
+                return "R," + encodeRecord(record);
+            case VEHICLE_RETURNED:
+                return "T," + encodeRecord(record);
+            case MAINTENANCE_STARTED:
+                // a return that triggers service is replayed by its "T" entry
+                if (previousStatus == Vehicle.VehicleStatus.RENTED) return null;
+                return "M," + vehicle.getLicensePlate() + "," + newStatus + "," + date;
+            case MAINTENANCE_COMPLETED:
+                return "F," + vehicle.getLicensePlate() + "," + date;
+            default:
+                return null;
+        }
+    }
+
+    public static String encodeHistory(RentalRecord record) {
+        return "H," + record.getRecordType() + "," + encodeRecord(record);
+    }
+
+    private static String encodeRecord(RentalRecord record) {
+        String requestId = record.getRequestId() == null ? "" : record.getRequestId();
+        return record.getVehicle().getLicensePlate() + "," + record.getCustomer().getCustomerId() + "," +
+               record.getRecordDate() + "," + record.getTotalAmount() +
+               (record.getDueDate() != null ? "," + requestId + "," + record.getDueDate()
+                       : requestId.isEmpty() ? "" : "," + requestId);
+    }
+
+    public static boolean apply(RentalSystem rentalSystem, String entry) {
+        String[] parts = entry.split(",", 2);
+        if (parts.length < 2) return false;
+
+        String payload = parts[1];
+        switch (parts[0]) {
+            case "V": {
+                Vehicle vehicle = RentalSystem.parseVehicle(payload);
+                return vehicle != null && rentalSystem.addVehicle(vehicle);
+            }
+            case "C": {
+                String[] fields = payload.split(",", 2);
+                return rentalSystem.addCustomer(new Customer(Integer.parseInt(fields[0]), fields[1]));
+            }
+            case "R":
+            case "T": {
+                String[] fields = payload.split(",");
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(fields[0]);
+                Customer customer = rentalSystem.findCustomerById(fields[1]);
+                if (vehicle == null || customer == null) return false;
+                LocalDate date = LocalDate.parse(fields[2]);
+                double amount = Double.parseDouble(fields[3]);
+                String requestId = fields.length > 4 && !fields[4].isEmpty() ? fields[4] : null;
+                LocalDate dueDate = fields.length > 5 ? LocalDate.parse(fields[5]) : null;
+                return "R".equals(parts[0])
+                        ? rentalSystem.rentVehicle(vehicle, customer, date, amount, requestId, dueDate)
+                        : rentalSystem.returnVehicle(vehicle, customer, date, amount, requestId);
+            }
+            case "M": {
+                String[] fields = payload.split(",");
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(fields[0]);
+                if (vehicle == null) return false;
+                Vehicle.VehicleStatus status = Vehicle.VehicleStatus.valueOf(fields[1]);
+                return vehicle.getStatus() == status
+                        || rentalSystem.startMaintenance(vehicle, status, LocalDate.parse(fields[2]));
+            }
+            case "F": {
+                String[] fields = payload.split(",");
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(fields[0]);
+                return vehicle != null && rentalSystem.completeMaintenance(vehicle, LocalDate.parse(fields[1]));
+            }
+            case "H": {
+                String[] fields = payload.split(",");
+                Vehicle vehicle = rentalSystem.findVehicleByPlate(fields[1]);
+                Customer customer = rentalSystem.findCustomerById(fields[2]);
+                if (vehicle == null || customer == null) return false;
+                rentalSystem.importRecord(new RentalRecord(vehicle, customer, LocalDate.parse(fields[3]),
+                        Double.parseDouble(fields[4]), fields[0], fields.length > 5 && !fields[5].isEmpty() ? fields[5] : null,
+                        fields.length > 6 ? LocalDate.parse(fields[6]) : null));
+                return true;
+            }
+            default:
+                return false;
+        }
+    }
+
+    public class Cursor implements Closeable {
+        private final RandomAccessFile in;
+        private long position;
+
+        private Cursor() throws IOException {
+            this.in = new RandomAccessFile(file, "r");
+        }
+
+        public List<String> next(long waitMillis) throws IOException, InterruptedException {
+            List<String> lines = new ArrayList<>();
+            long committed = awaitLength(position, waitMillis);
+            if (committed <= position) return lines;
+
+            byte[] buffer = new byte[(int) Math.min(committed - position, READ_CHUNK)];
+            in.seek(position);
+            in.readFully(buffer);
+
+            int start = 0;
+            for (int i = 0; i < buffer.length; i++) {
+                if (buffer[i] == '\n') {
+                    lines.add(new String(buffer, start, i - start, StandardCharsets.UTF_8));
+                    start = i + 1;
+                }
+            }
+            position += start;
+            return lines;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -3,19 +3,19 @@ public abstract class Vehicle {
     private String make;
     private String model;
     private int year;
-    private VehicleStatus status;
+    private volatile VehicleStatus status;
 
     public enum VehicleStatus { AVAILABLE, RESERVED, RENTED, MAINTENANCE, OUTOFSERVICE }
 
     public Vehicle(String make, String model, int year) {
-        this.make = capitalize(make); 
-        this.model = capitalize(model); 
+        this.make = AttributeDictionary.MAKES.lookup(make, Vehicle::capitalize); 
+        this.model = AttributeDictionary.MODELS.lookup(model, Vehicle::capitalize); 
         this.year = year;
         this.status = VehicleStatus.AVAILABLE;
         this.licensePlate = null;
     }
     
-    private String capitalize(String input) {
+    private static String capitalize(String input) {
         if (input == null || input.isEmpty()) {
             return null;
         }
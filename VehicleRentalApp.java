@@ -1,13 +1,28 @@
+import java.io.IOException;
 import java.util.Scanner;
 import java.time.LocalDate;
+import java.util.UUID;
 
 public class VehicleRentalApp {
+    private static final long OVERDUE_CHECK_MILLIS = 60 * 60 * 1000;
+
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         RentalSystem rentalSystem = RentalSystem.getInstance();
+        if (args.length > 0 && args[0].equals("--batch")) {
+            String commandFile = args.length > 1 && !args[1].equals("-") ? args[1] : null;
+            try {
+                BatchRunner.run(rentalSystem, commandFile);
+            } catch (IOException e) {
+                System.err.println("Batch failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        rentalSystem.startOverdueChecks(OVERDUE_CHECK_MILLIS);
 
         while (true) {
-        	System.out.println("\n1: Add Vehicle\n2: Add Customer\n3: Rent Vehicle\n4: Return Vehicle\n5: Display Available Vehicles\n6: Show Rental History\n7: Exit");
+        	System.out.println("\n1: Add Vehicle\n2: Add Customer\n3: Rent Vehicle\n4: Return Vehicle\n5: Display Available Vehicles\n6: Show Rental History\n7: Exit\n8: Vehicles Due For Service\n9: Start/Finish Maintenance");
             int choice = scanner.nextInt();
             scanner.nextLine();
 
@@ -77,22 +92,28 @@ public class VehicleRentalApp {
                     System.out.print("Enter customer ID: ");
                     String cidRent = scanner.nextLine();
 
-                    System.out.print("Enter rental amount: ");
-                    double rentAmount = scanner.nextDouble();
-                    scanner.nextLine();
+                    int rentDays = 0;
+                    while (rentDays < 1 || rentDays > PricingEngine.MAX_RENTAL_DAYS) {
+                        System.out.print("Enter number of days (1-" + PricingEngine.MAX_RENTAL_DAYS + "): ");
+                        try {
+                            rentDays = Integer.parseInt(scanner.nextLine().trim());
+                        } catch (NumberFormatException e) {
+                            rentDays = 0;
+                        }
+                    }
 
                     Vehicle vehicleToRent = rentalSystem.findVehicleByPlate(rentPlate);
                     Customer customerToRent = rentalSystem.findCustomerById(cidRent);
+                    System.out.printf("Rental amount: $%.2f%n", rentalSystem.quoteRental(vehicleToRent, LocalDate.now(), rentDays));
 
-                    boolean rentSuccess = rentalSystem.rentVehicle(vehicleToRent, customerToRent, LocalDate.now(), rentAmount);
+                    String rentRequestId = UUID.randomUUID().toString();
+                    boolean rentSuccess = rentalSystem.rentVehicleQuoted(vehicleToRent, customerToRent, LocalDate.now(), rentDays, rentRequestId);
                     if (rentSuccess) {
                         System.out.println("Vehicle rented successfully.");
                     } else {
                         System.out.println("Failed to rent vehicle.");
                 
                     }
-
-                    rentalSystem.rentVehicle(vehicleToRent, customerToRent, LocalDate.now(), rentAmount);
                     break;
 
                 case 4:
@@ -108,22 +129,18 @@ public class VehicleRentalApp {
                     System.out.print("Enter customer ID: ");
                     String cidReturn = scanner.nextLine();
 
-                    System.out.print("Enter return fees: ");
-                    double returnFees = scanner.nextDouble();
-                    scanner.nextLine();
-
                     Vehicle vehicleToReturn = rentalSystem.findVehicleByPlate(returnPlate);
                     Customer customerToReturn = rentalSystem.findCustomerById(cidReturn);
+                    System.out.printf("Late fees: $%.2f%n", rentalSystem.quoteReturn(vehicleToReturn, LocalDate.now()));
 
-                    boolean returnSuccess = rentalSystem.returnVehicle(vehicleToReturn, customerToReturn, LocalDate.now(), returnFees);
+                    String returnRequestId = UUID.randomUUID().toString();
+                    boolean returnSuccess = rentalSystem.returnVehicleQuoted(vehicleToReturn, customerToReturn, LocalDate.now(), returnRequestId);
                     if (returnSuccess) {
                         System.out.println("Vehicle returned successfully.");
                     } else {
                         System.out.println("Failed to return vehicle.");
                     
                     }
-
-                    rentalSystem.returnVehicle(vehicleToReturn, customerToReturn, LocalDate.now(), returnFees);
                     break;
                     
                 case 5:
@@ -131,10 +148,39 @@ public class VehicleRentalApp {
                     break;
                 
                 case 6:
-                    System.out.println("Rental History:");
-                    rentalSystem.displayRentalHistory();
+                    System.out.println("Rental History (newest first):");
+                    long cursor = 0;
+                    do {
+                        cursor = rentalSystem.displayRentalHistory(cursor, 20);
+                        if (cursor == 0) break;
+                        System.out.print("Press Enter for older records, or q to stop: ");
+                    } while (!scanner.nextLine().trim().equalsIgnoreCase("q"));
                     break;
                     
+                case 8:
+                    System.out.println("Vehicles due for service this week:");
+                    for (Vehicle due : rentalSystem.getVehiclesDueForService(LocalDate.now())) {
+                        System.out.println("  " + due.getLicensePlate() + " | " + due.getMake() + " " + due.getModel() +
+                                " | due " + rentalSystem.getMaintenancePlanner().getServiceDate(due) + " | " + due.getStatus());
+                    }
+                    break;
+
+                case 9:
+                    System.out.print("Enter license plate: ");
+                    Vehicle serviced = rentalSystem.findVehicleByPlate(scanner.nextLine().trim());
+                    if (serviced == null) {
+                        System.out.println("Vehicle not found.");
+                    } else if (serviced.getStatus() == Vehicle.VehicleStatus.MAINTENANCE
+                            || serviced.getStatus() == Vehicle.VehicleStatus.OUTOFSERVICE) {
+                        rentalSystem.completeMaintenance(serviced, LocalDate.now());
+                        System.out.println("Maintenance finished, vehicle is available.");
+                    } else if (rentalSystem.startMaintenance(serviced, Vehicle.VehicleStatus.MAINTENANCE, LocalDate.now())) {
+                        System.out.println("Vehicle moved to maintenance.");
+                    } else {
+                        System.out.println("Vehicle is " + serviced.getStatus() + " and cannot go into maintenance.");
+                    }
+                    break;
+
                 case 0:
                 	scanner.close();
                     System.exit(0);
@@ -1,7 +1,20 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.io.*;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.channels.Channels;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Modifier;
 
@@ -14,6 +27,9 @@ public class VehicleRentalTest {
     private Truck testTruck;
     private Customer testCustomer;
     private RentalSystem rentalSystem;
+
+    @TempDir
+    File tempDir;
     
     @BeforeEach
     void setUp() {
@@ -28,7 +44,13 @@ public class VehicleRentalTest {
   
         testCustomer = new Customer(1, "John Doe");
        
-        rentalSystem = RentalSystem.getInstance();
+        rentalSystem = RentalSystem.forDirectory(tempDir);
+    }
+    
+    private File directory(String name) {
+        File dir = new File(tempDir, name);
+        assertTrue(dir.mkdirs());
+        return dir;
     }
     
     @Test
@@ -114,6 +136,837 @@ public class VehicleRentalTest {
         assertSame(instance1, instance2, 
             "Multiple calls to getInstance() should return the same RentalSystem instance");
     }
+    
+    @Test
+    void testRentalAggregates() {
+        RentalHistory history = new RentalHistory();
+        LocalDate today = LocalDate.now();
+        
+        history.addRecord(new RentalRecord(testCar, testCustomer, today, 100.0, "RENT"));
+        history.addRecord(new RentalRecord(testCar, testCustomer, today, 25.0, "RETURN"));
+        history.addRecord(new RentalRecord(testTruck, testCustomer, today.minusDays(1), 80.0, "RENT"));
+        
+        RentalAggregates aggregates = history.getAggregates();
+        assertEquals(125.0, aggregates.getRevenueOn(today), 0.001, "Revenue for today should include rent and return fees");
+        assertEquals(205.0, aggregates.getTotalRevenue(), 0.001);
+        assertEquals(2, aggregates.getRentalCount(testCustomer.getCustomerId()), "Only RENT records count as rentals");
+        
+        aggregates.vehicleAdded(Vehicle.VehicleStatus.AVAILABLE);
+        aggregates.statusChanged(Vehicle.VehicleStatus.AVAILABLE, Vehicle.VehicleStatus.RENTED);
+        assertEquals(0, aggregates.getVehicleCount(Vehicle.VehicleStatus.AVAILABLE));
+        assertEquals(1, aggregates.getVehicleCount(Vehicle.VehicleStatus.RENTED));
+    }
+    
+    @Test
+    void testMakeAndModelAreShared() {
+        Car first = new Car("toyota", "corolla", 2020, 5);
+        Car second = new Car("TOYOTA", "Corolla", 2018, 5);
+        
+        assertEquals("Toyota", second.getMake());
+        assertSame(first.getMake(), second.getMake(), "Vehicles with the same make should share one String");
+        assertSame(first.getModel(), second.getModel(), "Vehicles with the same model should share one String");
+    }
+    
+    @Test
+    void testHistoryQueryCacheInvalidation() {
+        RentalHistory history = new RentalHistory();
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.now(), 100.0, "RENT"));
+        
+        assertEquals(1, history.getRentalRecordsByVehicle("abc123").size());
+        assertEquals(1, history.getRentalRecordsByVehicle("ABC123").size());
+        assertEquals(1, history.getVehicleQueryCache().getHitCount(), "Repeated lookup should be served from the cache");
+        
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.now(), 0.0, "RETURN"));
+        assertEquals(2, history.getRentalRecordsByVehicle("ABC123").size(), "Cache should be invalidated by addRecord");
+        assertEquals(2, history.getRentalRecordsByCustomer("john").size());
+    }
+    
+    @Test
+    void testEventBusBackpressure() {
+        RentalEventBus bus = new RentalEventBus();
+        RentalEventBus.Subscription subscription = bus.subscribe("test", 2, RentalEventBus.OverflowPolicy.DROP_OLDEST);
+        
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testCar, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testTruck, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        bus.publish(RentalEvent.Type.CUSTOMER_ADDED, null, testCustomer, null, null, null);
+        
+        assertEquals(1, subscription.getDroppedCount(), "Oldest event should be dropped when the queue is full");
+        assertSame(testTruck, subscription.poll().getVehicle());
+        assertEquals(RentalEvent.Type.CUSTOMER_ADDED, subscription.poll().getType());
+        
+        subscription.close();
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testMotorcycle, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        assertNull(subscription.poll(), "Closed subscriptions should not receive events");
+
+        RentalEventBus.Subscription stalled = bus.subscribe("stalled", 1, RentalEventBus.OverflowPolicy.BLOCK);
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testCar, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testTruck, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        assertTrue(stalled.isFailed(), "A full BLOCK subscriber must be cut off instead of stalling the publisher");
+        bus.publish(RentalEvent.Type.VEHICLE_ADDED, testMotorcycle, null, null, null, Vehicle.VehicleStatus.AVAILABLE);
+        assertSame(testCar, stalled.poll().getVehicle());
+        assertNull(stalled.poll());
+    }
+    
+    @Test
+    void testRetriedRentalIsNotExecutedTwice() {
+        String rentRequest = UUID.randomUUID().toString();
+        int before = rentalSystem.getRentalHistory().getRentalHistory().size();
+        
+        assertTrue(rentalSystem.rentVehicle(testTruck, testCustomer, LocalDate.now(), 120.0, rentRequest));
+        assertTrue(rentalSystem.rentVehicle(testTruck, testCustomer, LocalDate.now(), 120.0, rentRequest),
+            "A retry with the same request ID should return the original result");
+        assertEquals(before + 1, rentalSystem.getRentalHistory().getRentalHistory().size(),
+            "A retry should not write a second record");
+        assertEquals(rentRequest, rentalSystem.getRentalHistory().getRentalHistory().get(before).getRequestId());
+        
+        assertFalse(rentalSystem.rentVehicle(testTruck, testCustomer, LocalDate.now(), 120.0, UUID.randomUUID().toString()),
+            "A new request ID should execute again and fail because the vehicle is rented");
+        assertTrue(rentalSystem.returnVehicle(testTruck, testCustomer, LocalDate.now(), 0.0, UUID.randomUUID().toString()));
+    }
+    
+    @Test
+    void testBulkImportRejectsInvalidAndDuplicateRows() throws Exception {
+        File dir = directory("bulk-import");
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        system.addCustomer(new Customer(7, "Existing Customer"));
+
+        String csv = "type,plate,make,model,year,status,extra\n" +
+                "Car,BLK001,Toyota,Corolla,2020,AVAILABLE,5\n" +
+                "Truck,BLK002,Ford,F150,2019,AVAILABLE,1500.0\n" +
+                "Car,BLK001,Honda,Civic,2021,AVAILABLE,4\n" +
+                "Car,BAD99,Honda,Civic,2021,AVAILABLE,4\n" +
+                "Customer,8,Jane Roe\n" +
+                "Customer,7,Duplicate Customer\n";
+        StringWriter report = new StringWriter();
+        BulkImporter.Result result = new BulkImporter(system).importLines(
+                new BufferedReader(new StringReader(csv)), new PrintWriter(report));
+
+        assertEquals(2, result.getVehicles());
+        assertEquals(1, result.getCustomers());
+        assertEquals(3, result.getRejected());
+        assertTrue(report.toString().contains("4,duplicate license plate"));
+        assertTrue(report.toString().contains("5,Invalid license plate format: BAD99"));
+        assertTrue(report.toString().contains("7,duplicate customer ID"));
+        assertNotNull(system.findVehicleByPlate("BLK002"));
+        assertEquals(2, RentalSystem.forDirectory(dir).getVehicles().size());
+    }
+    
+    @Test
+    void testStreamingExportFiltersRecords() throws Exception {
+        RentalHistory history = new RentalHistory();
+        Customer other = new Customer(2, "Ana \"Quote\" Lee");
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.of(2024, 3, 1), 120.5, "RENT"));
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.of(2024, 3, 4), 10, "RETURN"));
+        history.addRecord(new RentalRecord(testTruck, other, LocalDate.of(2024, 5, 9), 300, "RENT"));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        long rows = new RentalExporter(RentalExporter.Format.CSV).ofType("rent")
+                .export(history, Channels.newChannel(csv));
+        assertEquals(2, rows);
+        assertEquals("type,plate,customerId,customerName,date,amount,requestId\n" +
+                "RENT,ABC123,1,John Doe,2024-03-01,120.50,\n" +
+                "RENT,DEF456,2,\"Ana \"\"Quote\"\" Lee\",2024-05-09,300.00,\n", csv.toString("UTF-8"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        rows = new RentalExporter(RentalExporter.Format.JSON).forCustomer(2)
+                .between(LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31))
+                .export(history, Channels.newChannel(json));
+        assertEquals(1, rows);
+        assertEquals("{\"type\":\"RENT\",\"plate\":\"DEF456\",\"customerId\":2,\"customerName\":\"Ana \\\"Quote\\\" Lee\"," +
+                "\"date\":\"2024-05-09\",\"amount\":300.00}\n", json.toString("UTF-8"));
+    }
+    
+    @Test
+    void testHistoryPagesAreStableAsHistoryGrows() {
+        RentalHistory history = new RentalHistory();
+        for (int day = 1; day <= 5; day++) {
+            history.addRecord(new RentalRecord(day % 2 == 0 ? testTruck : testCar, testCustomer,
+                    LocalDate.of(2024, 1, day), day, "RENT"));
+        }
+
+        long january = RentalRecordStore.sequence(YearMonth.of(2024, 1), 0);
+        HistoryPage newest = history.getPage(0, 2, true);
+        assertEquals(january + 5, newest.getRecords().get(0).getSequence());
+        assertEquals(january + 4, newest.getRecords().get(1).getSequence());
+        assertTrue(newest.hasMore());
+
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.of(2024, 1, 6), 6, "RENT"));
+        HistoryPage older = history.getPage(newest.getNextCursor(), 2, true);
+        assertEquals(january + 3, older.getRecords().get(0).getSequence());
+        assertEquals(january + 2, older.getRecords().get(1).getSequence());
+
+        HistoryPage cars = history.getPage(0, 10, false, r -> r.getVehicle() == testCar);
+        assertEquals(4, cars.getRecords().size());
+        assertFalse(cars.hasMore());
+        assertEquals(january + 6, cars.getNextCursor());
+        assertEquals(6, cars.getHistorySize());
+        assertThrows(UnsupportedOperationException.class, () -> history.getRentalHistory().clear());
+    }
+    
+    @Test
+    void testPricingEngineQuotesAndLateFees() {
+        PricingEngine pricing = new PricingEngine(new double[] { 1, 1, 1, 1, 1, 2, 1, 1, 1, 1, 1, 1 });
+        Car sevenSeater = new Car("Toyota", "Sienna", 2022, 7);
+        SportCar turbo = new SportCar("Porsche", "911", 2023, 2, 400, true);
+
+        assertEquals(57.0, pricing.getDailyRate(sevenSeater), 0.001);
+        assertEquals(205.0, pricing.getDailyRate(turbo), 0.001);
+        assertEquals(57.0 * 2 + 114.0, pricing.quoteRental(sevenSeater, LocalDate.of(2024, 5, 30), 3), 0.001);
+
+        RentalRecord rent = new RentalRecord(sevenSeater, testCustomer, LocalDate.of(2024, 3, 1),
+                pricing.quoteRental(sevenSeater, LocalDate.of(2024, 3, 1), 4), "RENT", null, LocalDate.of(2024, 3, 5));
+        assertEquals(0.0, pricing.lateFee(rent, LocalDate.of(2024, 3, 5)), 0.001);
+        assertEquals(57.0 * 2 * 1.5, pricing.lateFee(rent, LocalDate.of(2024, 3, 7)), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> pricing.quoteRental(sevenSeater, LocalDate.now(), 0));
+
+        RentalRecord open = new RentalRecord(sevenSeater, testCustomer, LocalDate.of(2024, 3, 1), 228.0, "RENT");
+        assertEquals(0.0, pricing.lateFee(open, LocalDate.of(2024, 4, 1)), 0.001, "No due date means no late fee");
+        OverdueScheduler scheduler = new OverdueScheduler();
+        scheduler.schedule(open, open.getDueDate());
+        assertSame(open, scheduler.getRental(sevenSeater));
+        assertTrue(scheduler.pollOverdue(LocalDate.of(2025, 1, 1)).isEmpty());
+    }
+    
+    @Test
+    void testSnapshotIsUnaffectedByLaterRentals() throws Exception {
+        RentalSystem system = RentalSystem.forDirectory(directory("snapshot"));
+        Car car = new Car("Honda", "Civic", 2021, 4);
+        car.setLicensePlate("SNP001");
+        system.addVehicle(car);
+        system.addCustomer(testCustomer);
+
+        RentalSnapshot before = system.snapshot();
+        List<Vehicle> vehiclesBefore = system.getVehicles();
+        assertTrue(system.rentVehicle(car, testCustomer, LocalDate.now(), 50.0));
+        Car second = new Car("Mazda", "3", 2022, 4);
+        second.setLicensePlate("SNP002");
+        system.addVehicle(second);
+
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, before.getStatus(0));
+        assertEquals(0, before.getRentalHistory().size());
+        assertEquals(1, vehiclesBefore.size());
+        assertThrows(UnsupportedOperationException.class, () -> vehiclesBefore.add(second));
+
+        RentalSnapshot after = system.snapshot();
+        assertEquals(Vehicle.VehicleStatus.RENTED, after.getStatus(0));
+        assertTrue(after.getVersion() > before.getVersion());
+        system.addCustomer(new Customer(77, "Late Joiner"));
+        assertTrue(system.snapshot().getVersion() > after.getVersion());
+        assertEquals(2, after.getVehicles().size());
+        assertEquals(1, after.countByStatus(Vehicle.VehicleStatus.AVAILABLE));
+    }
+    
+    @Test
+    void testOverdueRentalsAreFlaggedOnce() throws Exception {
+        File dir = directory("overdue");
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        Car late = new Car("Honda", "Civic", 2021, 4);
+        late.setLicensePlate("DUE001");
+        Car returned = new Car("Mazda", "3", 2022, 4);
+        returned.setLicensePlate("DUE002");
+        system.addVehicle(late);
+        system.addVehicle(returned);
+        system.addCustomer(testCustomer);
+        RentalEventBus.Subscription events = system.getEventBus().subscribe("overdue-test", 16, RentalEventBus.OverflowPolicy.DROP_OLDEST);
+
+        LocalDate today = LocalDate.now();
+        assertTrue(system.rentVehicleQuoted(late, testCustomer, today, 3));
+        assertTrue(system.rentVehicleQuoted(returned, testCustomer, today, 1));
+        assertTrue(system.returnVehicle(returned, testCustomer, today, 0.0));
+        assertEquals(today.plusDays(3), system.getOverdueScheduler().getDueDate(late));
+
+        assertTrue(system.checkOverdue(today.plusDays(3)).isEmpty());
+        List<RentalRecord> overdue = system.checkOverdue(today.plusDays(4));
+        assertEquals(1, overdue.size());
+        assertSame(late, overdue.get(0).getVehicle());
+        assertTrue(system.checkOverdue(today.plusDays(5)).isEmpty());
+        assertEquals(1, system.getOverdueRentals().size());
+
+        RentalEvent event;
+        do {
+            event = events.poll();
+        } while (event != null && event.getType() != RentalEvent.Type.VEHICLE_OVERDUE);
+        assertNotNull(event);
+        events.close();
+
+        RentalSystem reloaded = RentalSystem.forDirectory(dir);
+        Vehicle reloadedLate = reloaded.findVehicleByPlate("DUE001");
+        assertEquals(today.plusDays(3), reloaded.getOverdueScheduler().getDueDate(reloadedLate));
+        assertEquals(1, reloaded.getOverdueScheduler().getActiveCount());
+    }
+    
+    @Test
+    void testVehicleGoesToMaintenanceAfterServiceThreshold() throws Exception {
+        File dir = directory("maintenance");
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        Car car = new Car("Honda", "Civic", 2021, 4);
+        car.setLicensePlate("SVC001");
+        system.addVehicle(car);
+        system.addCustomer(testCustomer);
+        int threshold = system.getMaintenancePlanner().getRentalsPerService();
+
+        LocalDate today = LocalDate.now();
+        for (int i = 1; i < threshold; i++) {
+            assertTrue(system.rentVehicleQuoted(car, testCustomer, today, 1));
+            assertTrue(system.returnVehicle(car, testCustomer, today, 0.0));
+        }
+        assertTrue(system.getVehiclesDueForService(today).isEmpty());
+
+        assertTrue(system.rentVehicleQuoted(car, testCustomer, today, 2));
+        assertEquals(List.of(car), system.getVehiclesDueForService(today));
+        assertEquals(today.plusDays(2), system.getMaintenancePlanner().getServiceDate(car));
+        assertTrue(system.returnVehicle(car, testCustomer, today, 0.0));
+        assertEquals(Vehicle.VehicleStatus.MAINTENANCE, car.getStatus());
+        assertFalse(system.getAvailableVehicles().contains(car));
+        assertFalse(system.rentVehicle(car, testCustomer, today, 10.0));
+
+        RentalSystem reloaded = RentalSystem.forDirectory(dir);
+        assertEquals(Vehicle.VehicleStatus.MAINTENANCE, reloaded.findVehicleByPlate("SVC001").getStatus());
+
+        assertTrue(system.completeMaintenance(car, today));
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, car.getStatus());
+        assertTrue(system.getAvailableVehicles().contains(car));
+        assertEquals(0, system.getMaintenancePlanner().getRentalCount(car));
+        assertTrue(system.getVehiclesDueForService(today).isEmpty());
+
+        reloaded = RentalSystem.forDirectory(dir);
+        Vehicle reloadedCar = reloaded.findVehicleByPlate("SVC001");
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, reloadedCar.getStatus());
+        assertEquals(0, reloaded.getMaintenancePlanner().getRentalCount(reloadedCar));
+    }
+    
+    @Test
+    void testBatchRunnerExecutesCommandsAndReportsErrors() throws Exception {
+        RentalSystem system = RentalSystem.forDirectory(directory("batch"));
+        String commands = String.join("\n",
+                "# nightly load",
+                "add-vehicle Car,BAT001,Toyota,Corolla,2020,AVAILABLE,4",
+                "add-customer 901 Batch Person",
+                "rent BAT001 901 3 2026-10-01",
+                "rent BAT001 901 3 2026-10-01",
+                "return BAT001 901 2026-10-04",
+                "frobnicate",
+                "available");
+        StringWriter output = new StringWriter();
+        PrintWriter out = new PrintWriter(output);
+        BatchRunner runner = new BatchRunner(system, out);
+        runner.execute(new BufferedReader(new StringReader(commands)));
+        out.flush();
+
+        assertEquals(7, runner.getCommandCount());
+        assertEquals(2, runner.getFailureCount());
+        assertEquals(2, system.getRentalHistory().size());
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, system.findVehicleByPlate("BAT001").getStatus());
+        String report = output.toString();
+        assertTrue(report.contains("7 commands, 5 succeeded, 2 failed"));
+        assertTrue(report.contains("line 5: rent BAT001 901 3 2026-10-01 -> vehicle BAT001 is RENTED"));
+        assertTrue(report.contains("line 7: frobnicate -> unknown command 'frobnicate'"));
+
+        File commandFile = new File(tempDir, "batch.txt");
+        Files.write(commandFile.toPath(), List.of("rent BAT001 901 2 2026-10-05", "available"));
+        PrintStream stdout = System.out;
+        PrintStream console = system.getConsole();
+        BatchRunner.run(system, commandFile.getPath());
+        assertSame(stdout, System.out);
+        assertSame(console, system.getConsole());
+        assertEquals(Vehicle.VehicleStatus.RENTED, system.findVehicleByPlate("BAT001").getStatus());
+    }
+    
+    @Test
+    void testLegacyRecordsAreMigratedOnce() throws Exception {
+        File dir = directory("migrate");
+        LocalDate today = LocalDate.now();
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of("Car,MIG001,Honda,Civic,2021,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        Files.write(new File(dir, "rentalrecords.txt").toPath(), List.of(
+                "MIG001,Jane Roe," + today + ",120.00,RENT",
+                "MIG001,Jane Roe," + today + ",0.00,RETURN",
+                "MIG001,Nobody Known," + today + ",50.00,RENT"));
+        File stale = new File(RentalRecordStore.segmentFile(dir, YearMonth.from(today)).getPath() + ".migrating");
+        Files.write(stale.toPath(), List.of("RENT,MIG001,7," + today + ",999.00"));
+
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        assertEquals(2, system.getRentalHistory().size());
+        assertEquals(120.0, system.getRentalHistory().getRentalHistory().get(0).getTotalAmount(), 0.001);
+        assertFalse(new File(dir, "rentalrecords.txt").exists());
+        assertTrue(new File(dir, "rentalrecords.txt.migrated").exists());
+        assertFalse(stale.exists());
+        assertEquals(List.of("MIG001,Nobody Known," + today + ",50.00,RENT"),
+                Files.readAllLines(new File(dir, "rentalrecords.txt.unmatched").toPath()));
+
+        assertEquals(2, RentalSystem.forDirectory(dir).getRentalHistory().size());
+    }
+    
+    @Test
+    void testOffHeapHistoryRoundTripAndPlateLookup() {
+        OffHeapRentalHistory history = new OffHeapRentalHistory(2,
+                plate -> plate.equals("ABC123") ? testCar : testMotorcycle, id -> testCustomer);
+        LocalDate today = LocalDate.now();
+        history.addRecord(new RentalRecord(testCar, testCustomer, today, 100.0, "RENT", "rent-1", today.plusDays(2)));
+        history.addRecord(new RentalRecord(testMotorcycle, testCustomer, today, 40.0, "RENT"));
+        history.addRecord(new RentalRecord(testCar, testCustomer, today.plusDays(2), 15.5, "RETURN"));
+
+        assertEquals(3, history.size());
+        OffHeapRentalHistory.RecordView view = history.view().moveTo(2);
+        assertEquals("ABC123", view.getLicensePlate());
+        assertEquals("RETURN", view.getRecordType());
+        assertEquals(testCustomer.getCustomerId(), view.getCustomerId());
+        assertEquals(today.plusDays(2), view.getRecordDate());
+        assertEquals(15.5, view.getTotalAmount(), 0.001);
+
+        List<RentalRecord> carRecords = history.getRentalRecordsByVehicle("abc123");
+        assertEquals(2, carRecords.size());
+        assertSame(testCar, carRecords.get(0).getVehicle());
+        assertEquals(115.5, carRecords.get(0).getTotalAmount() + carRecords.get(1).getTotalAmount(), 0.001);
+        assertEquals("rent-1", carRecords.get(0).getRequestId());
+        assertEquals(today.plusDays(2), carRecords.get(0).getDueDate());
+        assertNull(carRecords.get(1).getRequestId());
+        assertNull(carRecords.get(1).getDueDate());
+        assertEquals(1, history.getRentalRecordsByVehicle("XYZ789").size());
+        assertEquals(155.5, history.getAggregates().getTotalRevenue(), 0.001);
+    }
+
+    @Test
+    void testMappedOffHeapHistoryReopens() throws Exception {
+        File file = new File(tempDir, "history.bin");
+        LocalDate today = LocalDate.now();
+        try (OffHeapRentalHistory history = OffHeapRentalHistory.mapped(file, plate -> testCar, id -> testCustomer)) {
+            history.addRecord(new RentalRecord(testCar, testCustomer, today, 100.0, "RENT"));
+            history.addRecord(new RentalRecord(testCar, testCustomer, today.plusDays(1), 20.0, "RETURN",
+                    "return-" + "y".repeat(50)));
+        }
+        try (OffHeapRentalHistory reopened = OffHeapRentalHistory.mapped(file, plate -> testCar, id -> testCustomer)) {
+            assertEquals(2, reopened.size());
+            assertEquals("return-" + "y".repeat(50), reopened.view().moveTo(1).toRentalRecord().getRequestId());
+            assertEquals(120.0, reopened.getAggregates().getTotalRevenue(), 0.001);
+            assertEquals(today.plusDays(1), reopened.view().moveTo(1).getRecordDate());
+            reopened.addRecord(new RentalRecord(testCar, testCustomer, today.plusDays(2), 50.0, "RENT"));
+            assertEquals(3, reopened.getRentalRecordsByVehicle("ABC123").size());
+        }
+    }
+
+    @Test
+    void testOffHeapColdTierServesOldSegments() throws Exception {
+        File dir = directory("offheap");
+        LocalDate old = LocalDate.now().minusMonths(12).withDayOfMonth(10);
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of("Car,OFF001,Honda,Civic,2021,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        String longId = "batch-" + "x".repeat(60);
+        Files.write(RentalRecordStore.segmentFile(dir, YearMonth.from(old)).toPath(), List.of(
+                "RENT,OFF001,7," + old + ",120.00,req-1," + old.plusDays(3),
+                "RETURN,OFF001,7," + old.plusDays(3) + ",0.00," + longId));
+
+        RentalSystem system = RentalSystem.forDirectory(dir, true);
+        assertTrue(system.getRecordStore().isOffHeapColdTier());
+        assertEquals(0, system.getRentalHistory().size());
+        List<RentalRecord> cold = system.getRentalHistory().getRentalRecordsBetween(old, old.plusDays(1));
+        assertEquals(1, cold.size());
+        assertEquals("OFF001", cold.get(0).getVehicle().getLicensePlate());
+        assertEquals(120.0, cold.get(0).getTotalAmount(), 0.001);
+        assertEquals(2, system.getRentalHistory().getRentalRecordsBetween(old, old.plusDays(3)).size());
+        assertTrue(system.getRecordStore().mappedSegmentFile(YearMonth.from(old)).exists());
+
+        List<RentalRecord> onHeap = RentalSystem.forDirectory(dir).getRentalHistory().getRentalRecordsBetween(old, old.plusDays(3));
+        for (boolean rebuilt : new boolean[] {false, true}) {
+            RentalSystem reopened = RentalSystem.forDirectory(dir, true);
+            if (rebuilt) {
+                reopened.importRecord(new RentalRecord(reopened.findVehicleByPlate("OFF001"), reopened.findCustomerById("7"),
+                        old.plusDays(5), 30.0, "RENT"));
+            }
+            List<RentalRecord> offHeap = reopened.getRentalHistory().getRentalRecordsBetween(old, old.plusDays(3));
+            assertEquals(onHeap.size(), offHeap.size());
+            for (int i = 0; i < onHeap.size(); i++) {
+                assertEquals(onHeap.get(i).toString(), offHeap.get(i).toString());
+                assertEquals(onHeap.get(i).getRequestId(), offHeap.get(i).getRequestId());
+                assertEquals(onHeap.get(i).getDueDate(), offHeap.get(i).getDueDate());
+                assertEquals(onHeap.get(i).getSequence(), offHeap.get(i).getSequence());
+            }
+            assertEquals(rebuilt ? 3 : 2, reopened.getRentalHistory().getRentalRecordsBetween(old, old.plusDays(5)).size());
+        }
+    }
+    
+    @Test
+    void testStandbyReplicatesSeedAndLaterChanges() throws Exception {
+        File primaryDir = directory("primary");
+        File standbyDir = directory("standby");
+        RentalSystem primary = RentalSystem.forDirectory(primaryDir);
+        Car car = new Car("Honda", "Civic", 2021, 4);
+        car.setLicensePlate("REP001");
+        primary.addVehicle(car);
+        primary.addCustomer(testCustomer);
+        LocalDate today = LocalDate.now();
+        primary.importRecord(new RentalRecord(car, testCustomer, today.minusMonths(6), 45.0, "RETURN"));
+        assertTrue(primary.rentVehicle(car, testCustomer, today, 80.0));
+        primary = RentalSystem.forDirectory(primaryDir);
+        car = (Car) primary.findVehicleByPlate("REP001");
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        TransactionLog primaryLog = new TransactionLog(new File(primaryDir, "transactions.log"));
+        RentalSystem standby = RentalSystem.forDirectory(standbyDir);
+        TransactionLog standbyLog = new TransactionLog(new File(standbyDir, "transactions.log"));
+        try (ReplicationPrimary replication = new ReplicationPrimary(primary, primaryLog, port);
+             ReplicationStandby follower = new ReplicationStandby(standby, standbyLog, "localhost", port)) {
+            replication.start();
+            long seeded = primaryLog.getLastSequence();
+            assertTrue(primary.returnVehicle(car, testCustomer, today.plusDays(2), 10.0, "ret-1"));
+            assertEquals(seeded + 1, primaryLog.getLastSequence());
+            follower.start();
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (standby.getRentalHistory().size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+        }
+
+        assertEquals(3, standby.getRentalHistory().size());
+        Vehicle replicated = standby.findVehicleByPlate("REP001");
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, replicated.getStatus());
+        assertEquals(today.minusMonths(6), standby.getRentalHistory().getRentalHistory().get(0).getRecordDate());
+        assertEquals("RETURN", standby.getRentalHistory().getRentalHistory().get(2).getRecordType());
+        assertEquals("ret-1", standby.getRentalHistory().getRentalHistory().get(2).getRequestId());
+        assertEquals(primaryLog.getLastSequence(), standbyLog.getLastSequence());
+        primaryLog.close();
+        standbyLog.close();
+    }
+    
+    @Test
+    void testPartitionedSystemRoutesByPlateAndFansOut() throws Exception {
+        File root = directory("shards");
+        LocalDate today = LocalDate.now();
+        List<Car> cars = new ArrayList<>();
+        try (PartitionedRentalSystem partitioned = new PartitionedRentalSystem(root, 4)) {
+            for (int i = 0; i < 12; i++) {
+                Car car = new Car("Honda", "Civic", 2021, 4);
+                car.setLicensePlate(String.format("SHD%03d", i));
+                assertTrue(partitioned.addVehicle(car));
+                cars.add(car);
+            }
+            for (Car car : cars) {
+                RentalSystem shard = partitioned.shardForPlate(car.getLicensePlate());
+                assertSame(car, shard.findVehicleByPlate(car.getLicensePlate()));
+                assertSame(car, partitioned.findVehicleByPlate(car.getLicensePlate().toLowerCase()));
+            }
+
+            Customer renter = new Customer(42, "Shard Renter");
+            assertFalse(partitioned.rentVehicle(cars.get(0), renter, today, 30.0));
+            assertEquals(0, partitioned.getCustomers().size());
+            assertTrue(partitioned.addCustomer(renter));
+            List<Thread> threads = new ArrayList<>();
+            for (Car car : cars) {
+                threads.add(new Thread(() -> partitioned.rentVehicle(car, renter, today, 30.0)));
+            }
+            for (Thread thread : threads) thread.start();
+            for (Thread thread : threads) thread.join();
+
+            assertEquals(12, partitioned.getVehicles().size());
+            assertEquals(0, partitioned.getAvailableVehicles().size());
+            assertEquals(12, partitioned.getVehicleCount(Vehicle.VehicleStatus.RENTED));
+            assertEquals(1, partitioned.getCustomers().size());
+            assertEquals(12, partitioned.getRentalRecordsByCustomer("shard renter").size());
+            assertEquals(360.0, partitioned.getRevenueOn(today), 0.001);
+            assertEquals(1, partitioned.getRentalRecordsByVehicle("SHD003").size());
+        }
+
+        int customerLines = 0;
+        for (int i = 0; i < 4; i++) {
+            customerLines += RentalSystem.readCustomers(new File(root, "shard-" + i)).size();
+        }
+        assertEquals(1, customerLines);
+        try (PartitionedRentalSystem reopened = new PartitionedRentalSystem(root, 4)) {
+            assertEquals(12, reopened.getRentalRecordsBetween(today, today).size());
+            assertEquals(12, reopened.getVehicleCount(Vehicle.VehicleStatus.RENTED));
+            Customer home = reopened.findCustomerById("42");
+            for (RentalRecord record : reopened.getRentalRecordsBetween(today, today)) {
+                assertSame(home, record.getCustomer());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new PartitionedRentalSystem(root, 3));
+    }
+    
+    @Test
+    void testRequestIdsAreScopedByOperationAndOnlySuccessesAreCached() throws Exception {
+        RentalSystem system = RentalSystem.forDirectory(directory("dedup"));
+        Car car = new Car("Honda", "Civic", 2021, 4);
+        car.setLicensePlate("DDP001");
+        system.addVehicle(car);
+        system.addCustomer(testCustomer);
+        LocalDate today = LocalDate.now();
+
+        assertTrue(system.rentVehicle(car, testCustomer, today, 50.0, "shared-id"));
+        assertTrue(system.returnVehicle(car, testCustomer, today, 0.0, "shared-id"),
+            "A return must not be answered from the rent's cached result");
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, car.getStatus());
+        assertEquals(2, system.getRentalHistory().size());
+
+        assertTrue(system.startMaintenance(car, Vehicle.VehicleStatus.MAINTENANCE, today));
+        assertFalse(system.rentVehicle(car, testCustomer, today, 50.0, "retry-id"));
+        assertTrue(system.completeMaintenance(car, today));
+        assertTrue(system.rentVehicle(car, testCustomer, today, 50.0, "retry-id"),
+            "A failed attempt must not pin the request ID to false");
+        assertEquals(3, system.getRentalHistory().size());
+    }
+    
+    @Test
+    void testExportEscapesRequestIdsNamesAndNullPlates() throws Exception {
+        RentalHistory history = new RentalHistory();
+        Car unplated = new Car("Honda", "Civic", 2021, 4);
+        Customer multiline = new Customer(3, "Line\r\nBreak");
+        history.addRecord(new RentalRecord(testCar, testCustomer, LocalDate.of(2024, 3, 1), 12.0, "RENT",
+                "id\"with\\quote", null));
+        history.addRecord(new RentalRecord(unplated, multiline, LocalDate.of(2024, 3, 2), 5.0, "RENT", "\u00fcn\u00ef", null));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        new RentalExporter(RentalExporter.Format.CSV).export(history, Channels.newChannel(csv));
+        assertEquals("type,plate,customerId,customerName,date,amount,requestId\n" +
+                "RENT,ABC123,1,John Doe,2024-03-01,12.00,\"id\"\"with\\quote\"\n" +
+                "RENT,,3,\"Line\r\nBreak\",2024-03-02,5.00,\u00fcn\u00ef\n", csv.toString("UTF-8"));
+
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        new RentalExporter(RentalExporter.Format.JSON).export(history, Channels.newChannel(json));
+        assertEquals("{\"type\":\"RENT\",\"plate\":\"ABC123\",\"customerId\":1,\"customerName\":\"John Doe\"," +
+                "\"date\":\"2024-03-01\",\"amount\":12.00,\"requestId\":\"id\\\"with\\\\quote\"}\n" +
+                "{\"type\":\"RENT\",\"plate\":null,\"customerId\":3,\"customerName\":\"Line\\u000d\\u000aBreak\"," +
+                "\"date\":\"2024-03-02\",\"amount\":5.00,\"requestId\":\"\u00fcn\u00ef\"}\n", json.toString("UTF-8"));
+    }
+    
+    @Test
+    void testSnapshotDoesNotWaitForTheSystemLock() throws Exception {
+        RentalSystem system = RentalSystem.forDirectory(directory("snapshot-lock"));
+        List<Vehicle> fleet = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Car car = new Car("Honda", "Civic", 2021, 4);
+            car.setLicensePlate("LCK00" + i);
+            fleet.add(car);
+        }
+        system.addVehicles(fleet);
+        system.addCustomer(testCustomer);
+        assertTrue(system.rentVehicle(fleet.get(1), testCustomer, LocalDate.now(), 50.0));
+        long version = system.snapshot().getVersion();
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread writer = new Thread(() -> {
+            synchronized (system) {
+                held.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        writer.start();
+        held.await();
+        RentalSnapshot snapshot;
+        try {
+            snapshot = CompletableFuture.supplyAsync(system::snapshot)
+                    .get(2, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writer.join();
+        }
+
+        assertEquals(3, snapshot.getVehicles().size());
+        assertEquals(Vehicle.VehicleStatus.RENTED, snapshot.getStatus(1));
+        assertEquals(2, snapshot.countByStatus(Vehicle.VehicleStatus.AVAILABLE));
+        assertEquals(version, snapshot.getVersion());
+
+        Vehicle.VehicleStatus[] statuses = new Vehicle.VehicleStatus[3000];
+        Arrays.fill(statuses, Vehicle.VehicleStatus.AVAILABLE);
+        VehicleStatusTable table = VehicleStatusTable.EMPTY.with(0, statuses, 0);
+        VehicleStatusTable next = table.with(2500, Vehicle.VehicleStatus.RENTED, 1);
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, table.get(2500));
+        assertEquals(Vehicle.VehicleStatus.RENTED, next.get(2500));
+        assertEquals(1, next.count(Vehicle.VehicleStatus.RENTED));
+        assertEquals(3000, next.size());
+    }
+    
+    @Test
+    void testOpenRentalsOlderThanHotWindowSurviveRestart() throws Exception {
+        File dir = directory("cold-open");
+        LocalDate old = LocalDate.now().minusMonths(6).withDayOfMonth(5);
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of(
+                "Car,OLD001,Honda,Civic,2021,AVAILABLE,4",
+                "Car,OLD002,Mazda,3,2022,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        RentalSystem.forDirectory(dir);
+        assertFalse(RentalRecordStore.checkpointFile(dir).exists(), "Without cold segments there is nothing to checkpoint");
+        Files.write(RentalRecordStore.segmentFile(dir, YearMonth.from(old)).toPath(), List.of(
+                "RENT,OLD001,7," + old + ",100.00,," + old.plusDays(3),
+                "RENT,OLD002,7," + old + ",100.00,," + old.plusDays(3),
+                "RETURN,OLD002,7," + old.plusDays(2) + ",0.00"));
+
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        Vehicle stillOut = system.findVehicleByPlate("OLD001");
+        assertEquals(Vehicle.VehicleStatus.RENTED, stillOut.getStatus());
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, system.findVehicleByPlate("OLD002").getStatus());
+        assertFalse(system.rentVehicle(stillOut, system.findCustomerById("7"), LocalDate.now(), 50.0));
+        assertEquals(1, system.checkOverdue(LocalDate.now()).size());
+        assertTrue(RentalRecordStore.checkpointFile(dir).exists());
+
+        RentalSystem reopened = RentalSystem.forDirectory(dir);
+        assertEquals(Vehicle.VehicleStatus.RENTED, reopened.findVehicleByPlate("OLD001").getStatus());
+        reopened.importRecord(new RentalRecord(reopened.findVehicleByPlate("OLD001"), reopened.findCustomerById("7"),
+                old.plusDays(4), 0.0, "RETURN"));
+        assertFalse(RentalRecordStore.checkpointFile(dir).exists(), "A cold append must invalidate the checkpoint");
+        assertEquals(Vehicle.VehicleStatus.AVAILABLE, RentalSystem.forDirectory(dir).findVehicleByPlate("OLD001").getStatus());
+    }
+    
+    @Test
+    void testMaintenanceLogEntriesCarryTheirOwnDate() throws Exception {
+        LocalDate serviced = LocalDate.of(2024, 3, 9);
+        assertNull(TransactionLog.encode(new RentalEvent(1, RentalEvent.Type.MAINTENANCE_STARTED, testCar, null, null,
+                Vehicle.VehicleStatus.RENTED, Vehicle.VehicleStatus.MAINTENANCE, serviced)));
+        assertEquals("M," + testCar.getLicensePlate() + ",MAINTENANCE," + serviced,
+                TransactionLog.encode(new RentalEvent(2, RentalEvent.Type.MAINTENANCE_STARTED, testCar, null, null,
+                        Vehicle.VehicleStatus.AVAILABLE, Vehicle.VehicleStatus.MAINTENANCE, serviced)));
+        assertEquals("F," + testCar.getLicensePlate() + "," + serviced,
+                TransactionLog.encode(new RentalEvent(3, RentalEvent.Type.MAINTENANCE_COMPLETED, testCar, null, null,
+                        Vehicle.VehicleStatus.MAINTENANCE, Vehicle.VehicleStatus.AVAILABLE, serviced)));
+
+        RentalSystem standby = RentalSystem.forDirectory(directory("standby"));
+        Vehicle car = new Car("Honda", "Civic", 2021, 4);
+        car.setLicensePlate("MNT001");
+        standby.addVehicle(car);
+        standby.startMaintenance(car, Vehicle.VehicleStatus.MAINTENANCE, serviced);
+        assertTrue(TransactionLog.apply(standby, "M,MNT001,MAINTENANCE," + serviced),
+                "An M already implied by a return must not fail on the standby");
+        assertTrue(TransactionLog.apply(standby, "F,MNT001," + serviced));
+        assertEquals(serviced, standby.getMaintenancePlanner().getLastServiced(car));
+    }
+
+    @Test
+    void testMaintenanceCountsIncludeColdSegments() throws Exception {
+        File dir = directory("cold-service");
+        LocalDate old = LocalDate.now().minusMonths(6).withDayOfMonth(1);
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of(
+                "Car,SRV001,Honda,Civic,2021,AVAILABLE,4",
+                "Car,SRV002,Mazda,3,2022,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        List<String> lines = new ArrayList<>();
+        for (int day = 0; day < MaintenancePlanner.DEFAULT_RENTALS_PER_SERVICE; day++) {
+            LocalDate date = old.plusDays(day);
+            lines.add("RENT,SRV001,7," + date + ",100.00,," + date.plusDays(1));
+            lines.add("RETURN,SRV001,7," + date.plusDays(1) + ",0.00");
+        }
+        lines.add("RENT,SRV002,7," + old + ",100.00,," + old.plusDays(1));
+        lines.add("RETURN,SRV002,7," + old.plusDays(1) + ",0.00");
+        Files.write(RentalRecordStore.segmentFile(dir, YearMonth.from(old)).toPath(), lines);
+
+        for (int open = 0; open < 2; open++) {
+            RentalSystem system = RentalSystem.forDirectory(dir);
+            MaintenancePlanner planner = system.getMaintenancePlanner();
+            Vehicle due = system.findVehicleByPlate("SRV001");
+            assertEquals(MaintenancePlanner.DEFAULT_RENTALS_PER_SERVICE, planner.getRentalCount(due));
+            assertEquals(old.plusDays(MaintenancePlanner.DEFAULT_RENTALS_PER_SERVICE), planner.getServiceDate(due));
+            assertEquals(1, planner.getRentalCount(system.findVehicleByPlate("SRV002")));
+        }
+
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        Vehicle due = system.findVehicleByPlate("SRV001");
+        assertTrue(system.startMaintenance(due, Vehicle.VehicleStatus.MAINTENANCE, LocalDate.now()));
+        assertTrue(system.completeMaintenance(due, LocalDate.now()));
+
+        RentalSystem reopened = RentalSystem.forDirectory(dir);
+        assertEquals(0, reopened.getMaintenancePlanner().getRentalCount(reopened.findVehicleByPlate("SRV001")));
+        assertFalse(reopened.getMaintenancePlanner().isServiceScheduled(reopened.findVehicleByPlate("SRV001")));
+        assertEquals(1, reopened.getMaintenancePlanner().getRentalCount(reopened.findVehicleByPlate("SRV002")));
+    }
+    
+    @Test
+    void testStandbyStopsAtAnEntryItCannotApply() throws Exception {
+        File primaryDir = directory("primary");
+        File standbyDir = directory("standby");
+        TransactionLog primaryLog = new TransactionLog(new File(primaryDir, "transactions.log"));
+        primaryLog.append("C,7,Ada");
+        primaryLog.append("R,ZZZ999,7," + LocalDate.now() + ",50.0");
+        primaryLog.append("C,8,Grace");
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        RentalSystem standby = RentalSystem.forDirectory(standbyDir);
+        TransactionLog standbyLog = new TransactionLog(new File(standbyDir, "transactions.log"));
+        try (ReplicationPrimary replication = new ReplicationPrimary(RentalSystem.forDirectory(primaryDir), primaryLog, port);
+             ReplicationStandby follower = new ReplicationStandby(standby, standbyLog, "localhost", port)) {
+            replication.start();
+            follower.start();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (standby.findCustomerById("7") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            Thread.sleep(300);
+        }
+
+        assertEquals(1, standbyLog.getLastSequence());
+        assertNull(standby.findCustomerById("8"));
+        primaryLog.close();
+        standbyLog.close();
+    }
+    
+    @Test
+    void testColdHistoryIsQueryableAfterRestart() throws Exception {
+        File dir = directory("cold-history");
+        LocalDate old = LocalDate.now().minusMonths(8).withDayOfMonth(10);
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of("Car,HIS001,Honda,Civic,2021,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        Files.write(RentalRecordStore.segmentFile(dir, YearMonth.from(old)).toPath(), List.of(
+                "RENT,HIS001,7," + old + ",100.00,," + old.plusDays(2),
+                "RETURN,HIS001,7," + old.plusDays(2) + ",15.00"));
+
+        for (int open = 0; open < 2; open++) {
+            RentalSystem system = RentalSystem.forDirectory(dir);
+            Vehicle car = system.findVehicleByPlate("HIS001");
+            assertTrue(system.rentVehicle(car, system.findCustomerById("7"), LocalDate.now(), 40.0));
+            assertTrue(system.returnVehicle(car, system.findCustomerById("7"), LocalDate.now(), 0.0));
+
+            assertEquals(2 + 2 * (open + 1), system.getRentalHistory().getRentalRecordsByVehicle("his001").size());
+            assertEquals(2 + 2 * (open + 1), system.getRentalHistory().getRentalRecordsByCustomer("jane").size());
+            RentalAggregates aggregates = system.getAggregates();
+            assertEquals(115.0 + 40.0 * (open + 1), aggregates.getTotalRevenue(), 0.001);
+            assertEquals(100.0, aggregates.getRevenueOn(old), 0.001);
+            assertEquals(2 + open, aggregates.getRentalCount(7));
+            assertEquals(2 + 2 * (open + 1), aggregates.getRecordCount());
+        }
+    }
+    
+    @Test
+    void testHistoryCursorSurvivesRestartAndPagesIntoColdSegments() throws Exception {
+        File dir = directory("history-cursor");
+        LocalDate old = LocalDate.now().minusMonths(8).withDayOfMonth(10);
+        Files.write(new File(dir, "vehicles.txt").toPath(), List.of("Car,CUR001,Honda,Civic,2021,AVAILABLE,4"));
+        Files.write(new File(dir, "customers.txt").toPath(), List.of("7,Jane Roe"));
+        Files.write(RentalRecordStore.segmentFile(dir, YearMonth.from(old)).toPath(), List.of(
+                "RENT,CUR001,7," + old + ",100.00",
+                "RETURN,CUR001,7," + old.plusDays(2) + ",15.00"));
+
+        RentalSystem system = RentalSystem.forDirectory(dir);
+        Vehicle car = system.findVehicleByPlate("CUR001");
+        assertTrue(system.rentVehicle(car, system.findCustomerById("7"), LocalDate.now(), 40.0));
+        assertTrue(system.returnVehicle(car, system.findCustomerById("7"), LocalDate.now(), 0.0));
+        HistoryPage newest = system.getRentalHistory().getPage(0, 2, true);
+        assertEquals("RETURN", newest.getRecords().get(0).getRecordType());
+        assertEquals(LocalDate.now(), newest.getRecords().get(1).getRecordDate());
+        assertTrue(newest.hasMore());
+        assertEquals(4, newest.getHistorySize());
+
+        RentalSystem reopened = RentalSystem.forDirectory(dir);
+        assertTrue(reopened.rentVehicle(reopened.findVehicleByPlate("CUR001"), reopened.findCustomerById("7"), LocalDate.now(), 40.0));
+        HistoryPage older = reopened.getRentalHistory().getPage(newest.getNextCursor(), 2, true);
+        assertEquals(2, older.getRecords().size());
+        assertEquals(old.plusDays(2), older.getRecords().get(0).getRecordDate());
+        assertEquals(old, older.getRecords().get(1).getRecordDate());
+        assertFalse(older.hasMore());
+
+        HistoryPage oldest = reopened.getRentalHistory().getPage(0, 3, false);
+        assertEquals(old, oldest.getRecords().get(0).getRecordDate());
+        assertEquals(newest.getNextCursor(), oldest.getRecords().get(2).getSequence());
+        assertEquals(1, reopened.getRentalHistory().getPage(newest.getRecords().get(0).getSequence(), 2, false).getRecords().size());
+    }
 }
   
 
@@ -0,0 +1,80 @@
+import java.util.Arrays;
+
+public class VehicleStatusTable {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    public static final VehicleStatusTable EMPTY = new VehicleStatusTable(new Vehicle.VehicleStatus[0][], 0, 0, 0);
+
+    private final Vehicle.VehicleStatus[][] chunks;
+    private final int size;
+    private final long historySize;
+    private final long version;
+
+    private VehicleStatusTable(Vehicle.VehicleStatus[][] chunks, int size, long historySize, long version) {
+        this.chunks = chunks;
+        this.size = size;
+        this.historySize = historySize;
+        this.version = version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getHistorySize() {
+        return historySize;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Vehicle.VehicleStatus get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return chunks[index >>> CHUNK_BITS][index & (CHUNK_SIZE - 1)];
+    }
+
+    public int count(Vehicle.VehicleStatus status) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (chunks[i >>> CHUNK_BITS][i & (CHUNK_SIZE - 1)] == status) count++;
+        }
+        return count;
+    }
+
+    public VehicleStatusTable with(int index, Vehicle.VehicleStatus status, long historySize) {
+        return with(index, new Vehicle.VehicleStatus[] { status }, historySize);
+    }
+
+    public VehicleStatusTable with(int start, Vehicle.VehicleStatus[] statuses, long historySize) {
+        if (start < 0 || start > size) {
+            throw new IndexOutOfBoundsException("Index " + start + " out of bounds for length " + size);
+        }
+        int newSize = Math.max(size, start + statuses.length);
+        int chunkCount = (newSize + CHUNK_SIZE - 1) >>> CHUNK_BITS;
+        Vehicle.VehicleStatus[][] copy = Arrays.copyOf(chunks, Math.max(chunkCount, chunks.length));
+
+        int lastCopied = -1;
+        for (int i = 0; i < statuses.length; i++) {
+            int index = start + i;
+            int chunk = index >>> CHUNK_BITS;
+            if (chunk != lastCopied) {
+                copy[chunk] = copy[chunk] == null ? new Vehicle.VehicleStatus[CHUNK_SIZE] : copy[chunk].clone();
+                lastCopied = chunk;
+            }
+            copy[chunk][index & (CHUNK_SIZE - 1)] = statuses[i];
+        }
+        return new VehicleStatusTable(copy, newSize, historySize, version + 1);
+    }
+
+    public VehicleStatusTable withHistorySize(long historySize) {
+        return new VehicleStatusTable(chunks, size, historySize, version + 1);
+    }
+
+    public VehicleStatusTable withNextVersion() {
+        return new VehicleStatusTable(chunks, size, historySize, version + 1);
+    }
+}